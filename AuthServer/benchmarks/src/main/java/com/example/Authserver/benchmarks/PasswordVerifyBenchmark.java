@@ -0,0 +1,63 @@
+package com.example.Authserver.benchmarks;
+
+import com.example.Authserver.entity.User;
+import com.example.Authserver.security.PasswordEncoderCalibration;
+import com.example.Authserver.service.UserService;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// UserService.verifyPassword per BCrypt cost; each step should roughly double the time
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordVerifyBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"8", "10", "12"})
+    public int cost;
+
+    private UserService userService;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PasswordEncoder encoder = PasswordEncoderCalibration.create(PasswordEncoderCalibration.BCRYPT,
+                Duration.ofMillis(250), cost, 4, 31, 0, 10);
+        // verifyPassword only touches the encoder
+        userService = new UserService(null, encoder, null, ObservationRegistry.NOOP);
+        user = User.builder()
+                .id("benchmark-user")
+                .email("student@example.edu")
+                .password(encoder.encode(PASSWORD))
+                .build();
+    }
+
+    @Benchmark
+    public boolean verifyCorrect() {
+        return userService.verifyPassword(user, PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verifyWrong() {
+        return userService.verifyPassword(user, "wrong password");
+    }
+}
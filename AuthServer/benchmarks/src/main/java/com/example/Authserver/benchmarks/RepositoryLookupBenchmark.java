@@ -0,0 +1,97 @@
+package com.example.Authserver.benchmarks;
+
+import com.example.Authserver.cache.UserCache;
+import com.example.Authserver.entity.User;
+import com.example.Authserver.repository.LocalUserStore;
+import com.example.Authserver.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// UserRepository over the in-memory LocalUserStore, so only caching, coalescing and copying are measured.
+// "hit" serves everything from UserCache; "miss" runs with a cache that keeps nothing
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryLookupBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int BATCH = 100;
+
+    @Param({"hit", "miss"})
+    public String cache;
+
+    private UserRepository repository;
+    private List<String> emails;
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        LocalUserStore store = new LocalUserStore(new ObjectMapper(), "", false, Integer.MAX_VALUE);
+        UserCache userCache = "hit".equals(cache) ?
+                new UserCache(USERS, Duration.ofHours(1)) :
+                new UserCache(0, Duration.ZERO);
+        repository = new UserRepository(store, userCache, new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(User.builder()
+                    .id("user-" + i)
+                    .email("student" + i + "@example.edu")
+                    .fullName("Student " + i)
+                    .role("student")
+                    .password("$2a$10$abcdefghijklmnopqrstuuN0tARealHashButTheRightLength12")
+                    .studentId("S" + i)
+                    .roleAssigned(true)
+                    .build());
+        }
+        store.createAll(users).join();
+        emails = users.stream().map(User::getEmail).toList();
+        ids = users.stream().map(User::getId).toList();
+
+        // Warm the cache so "hit" never touches the store
+        repository.findAllByIds(ids).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<User> findByEmail() {
+        return repository.findByEmailAsync(emails.get(ThreadLocalRandom.current().nextInt(USERS))).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<User> findById() {
+        return repository.findByIdAsync(ids.get(ThreadLocalRandom.current().nextInt(USERS))).join();
+    }
+
+    @Benchmark
+    public Map<String, User> findAllByEmails() {
+        int start = ThreadLocalRandom.current().nextInt(USERS - BATCH);
+        return repository.findAllByEmails(emails.subList(start, start + BATCH)).join();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.Authserver.benchmarks;
+
+import com.example.Authserver.dto.AuthResponse;
+import com.example.Authserver.entity.User;
+import com.example.Authserver.security.SessionTokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The login response as AuthController builds it (AuthResponse, plus a signed token in token mode)
+// and serializes it through the same Jackson setup Spring MVC uses. mapLoginResponse is the
+// Map.of body the controller used to build, kept for comparison
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseBuildingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private SessionTokenService sessionTokens;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+        sessionTokens = new SessionTokenService("token", "", Duration.ofHours(12), true);
+        user = User.builder()
+                .id("3f1c2a9e-7d4b-4e0a-9a51-2c6f0e8b7d13")
+                .email("student@example.edu")
+                .fullName("Ada Lovelace")
+                .role("student")
+                .studentId("S1234567")
+                .roleAssigned(true)
+                .build();
+    }
+
+    @Benchmark
+    public AuthResponse loginBody() {
+        return AuthResponse.signedIn(user);
+    }
+
+    @Benchmark
+    public byte[] loginSessionResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(AuthResponse.signedIn(user));
+    }
+
+    @Benchmark
+    public byte[] loginTokenResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(AuthResponse.signedIn(user).withToken(sessionTokens.issue(user)));
+    }
+
+    @Benchmark
+    public byte[] mapLoginResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of(
+                "userId", user.getId(),
+                "email", user.getEmail(),
+                "fullName", user.getFullName(),
+                "role", user.getRole()
+        ));
+    }
+}
@@ -0,0 +1,96 @@
+package com.google.cloud.firestore;
+
+import com.example.Authserver.entity.User;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.encoding.CustomClassMapper;
+import com.google.firestore.v1.Document;
+import com.google.firestore.v1.Write;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// User <-> Firestore document mapping exactly as the client library does it for FirestoreUserStore:
+// set(user) on the way out, toObject(User.class) on a fetched document on the way in. Lives in the
+// client's package because the snapshot factories are package-private; no RPCs are made.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentMappingBenchmark {
+
+    private Firestore firestore;
+    private FirestoreRpcContext<?> context;
+    private DocumentReference reference;
+    private User user;
+    private Document document;
+    private Timestamp readTime;
+
+    @Setup
+    public void setUp() {
+        firestore = FirestoreOptions.newBuilder()
+                .setProjectId("benchmark")
+                .setCredentials(NoCredentials.getInstance())
+                .build()
+                .getService();
+        context = (FirestoreRpcContext<?>) firestore;
+        user = User.builder()
+                .id("3f1c2a9e-7d4b-4e0a-9a51-2c6f0e8b7d13")
+                .email("student@example.edu")
+                .fullName("Ada Lovelace")
+                .role("student")
+                .googleId("112233445566778899001")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z6T8m0bXe7Yw1o2lF6Y0i2uK")
+                .studentId("S1234567")
+                .roleAssigned(true)
+                .build();
+        reference = firestore.collection("users").document(user.getId());
+        readTime = Timestamp.now();
+        document = encode().toPb().getUpdate().toBuilder()
+                .setCreateTime(readTime.toProto())
+                .setUpdateTime(readTime.toProto())
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        firestore.close();
+    }
+
+    // What WriteBatch.set(reference, user) sends
+    @Benchmark
+    public Write toDocument() {
+        return encode().toPb().build();
+    }
+
+    // What DocumentSnapshot.toObject(User.class) costs once the RPC has returned
+    @Benchmark
+    public User fromDocument() {
+        return DocumentSnapshot.fromDocument(context, readTime, document).toObject(User.class);
+    }
+
+    // Decoding without the reflective bean mapping, for comparison with fromDocument
+    @Benchmark
+    public Map<String, Object> fromDocumentAsMap() {
+        return DocumentSnapshot.fromDocument(context, readTime, document).getData();
+    }
+
+    @SuppressWarnings("unchecked")
+    private DocumentSnapshot encode() {
+        Map<String, Object> fields = (Map<String, Object>) CustomClassMapper.convertToPlainJavaTypes(user);
+        return DocumentSnapshot.fromObject(context, reference, fields, UserDataConverter.NO_DELETES);
+    }
+}
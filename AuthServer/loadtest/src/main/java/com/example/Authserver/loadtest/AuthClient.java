@@ -0,0 +1,168 @@
+package com.example.Authserver.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The AuthServer calls the scenario makes, timed into EndpointStats under the given label (null = not timed)
+final class AuthClient {
+
+    private static final Pattern USER_ID = Pattern.compile("\"userId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern NEEDS_ROLE = Pattern.compile("\"needsRoleAssignment\"\\s*:\\s*true");
+
+    // Whatever the server signed the user in with: the servlet session or the signed token cookie
+    private static final String[] SESSION_COOKIES = {"JSESSIONID", "AUTH_TOKEN"};
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final EndpointStats stats;
+
+    record Response(int status, String body, Map<String, String> cookies) {
+
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        String userId() {
+            Matcher matcher = USER_ID.matcher(body);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+
+        boolean needsRole() {
+            return NEEDS_ROLE.matcher(body).find();
+        }
+    }
+
+    // A signed-in browser: every cookie the server set, and the one the attendance service forwards
+    record Session(String userId, String cookieHeader, String sessionCookie) {
+    }
+
+    AuthClient(HttpClient http, String baseUrl, Duration timeout, EndpointStats stats) {
+        this.http = http;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = timeout;
+        this.stats = stats;
+    }
+
+    Response register(String email, String password, String fullName) {
+        return post(null, "/api/auth/register",
+                json("email", email, "password", password, "fullName", fullName), null);
+    }
+
+    Response assignRole(String userId, String role) {
+        return post(null, "/api/auth/role", json("userId", userId, "role", role), null);
+    }
+
+    Response login(String label, String email, String password) {
+        return post(label, "/api/auth/login", json("email", email, "password", password), null);
+    }
+
+    Response googleLogin(String label, String googleId, String email, String fullName) {
+        return post(label, "/api/auth/google/login",
+                json("googleId", googleId, "email", email, "fullName", fullName), null);
+    }
+
+    // The student's browser polling its own sign-in state
+    Response status(String label, Session session) {
+        return get(label, "/api/auth/status", session.cookieHeader());
+    }
+
+    // What the attendance service's validate_session does: forward only the session cookie
+    Response validateSession(String label, Session session) {
+        return get(label, "/api/auth/status", session.sessionCookie());
+    }
+
+    // The server under test may still be starting (a container cold start takes a while)
+    boolean awaitHealthy(Duration wait) throws InterruptedException {
+        long deadline = System.nanoTime() + wait.toNanos();
+        do {
+            if (get(null, "/actuator/health", null).ok()) {
+                return true;
+            }
+            Thread.sleep(1000);
+        } while (System.nanoTime() < deadline);
+        return false;
+    }
+
+    static Session session(Response login) {
+        if (!login.ok()) {
+            return null;
+        }
+        StringBuilder all = new StringBuilder();
+        login.cookies().forEach((name, value) -> all.append(all.length() > 0 ? "; " : "").append(name).append('=').append(value));
+        String sessionCookie = null;
+        for (String name : SESSION_COOKIES) {
+            if (login.cookies().containsKey(name)) {
+                sessionCookie = name + "=" + login.cookies().get(name);
+                break;
+            }
+        }
+        return sessionCookie == null ? null : new Session(login.userId(), all.toString(), sessionCookie);
+    }
+
+    private Response post(String label, String path, String body, String cookies) {
+        HttpRequest.Builder request = request(path, cookies)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        return send(label, request.build());
+    }
+
+    private Response get(String label, String path, String cookies) {
+        return send(label, request(path, cookies).GET().build());
+    }
+
+    private HttpRequest.Builder request(String path, String cookies) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+        if (cookies != null) {
+            request.header("Cookie", cookies);
+        }
+        return request;
+    }
+
+    private Response send(String label, HttpRequest request) {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            HttpResponse<String> http = this.http.send(request, HttpResponse.BodyHandlers.ofString());
+            response = new Response(http.statusCode(), http.body(), cookies(http));
+        } catch (IOException e) {
+            response = new Response(0, "", Map.of());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = new Response(0, "", Map.of());
+        }
+        if (label != null) {
+            stats.record(label, System.nanoTime() - start, response.status(), response.ok());
+        }
+        return response;
+    }
+
+    private static Map<String, String> cookies(HttpResponse<?> response) {
+        Map<String, String> cookies = new LinkedHashMap<>();
+        for (String header : response.headers().allValues("set-cookie")) {
+            String pair = header.split(";", 2)[0];
+            int equals = pair.indexOf('=');
+            if (equals > 0 && equals < pair.length() - 1) {
+                cookies.put(pair.substring(0, equals).trim(), pair.substring(equals + 1).trim());
+            }
+        }
+        return cookies;
+    }
+
+    private static String json(String... keysAndValues) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            json.append(i > 0 ? "," : "").append('"').append(keysAndValues[i]).append("\":\"")
+                    .append(keysAndValues[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return json.append('}').toString();
+    }
+}
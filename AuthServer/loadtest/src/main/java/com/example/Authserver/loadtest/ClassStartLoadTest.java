@@ -0,0 +1,233 @@
+package com.example.Authserver.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// "Class starts": a lecture hall of students signs in within a few seconds of each other (password or
+// Google), then loads the attendance pages. Each page load is the browser polling /status plus the
+// attendance service's validate_session call, which forwards only the session cookie to /status.
+//
+// Students arrive at a fixed rate over the ramp regardless of how fast the server answers (open model),
+// so a saturated server shows up as growing latency and errors rather than as fewer requests.
+// Accounts are created (or reused) before the clock starts and are not part of the report.
+public class ClassStartLoadTest {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("base-url", "http://localhost:8081");
+        DEFAULTS.put("students", "200");
+        DEFAULTS.put("ramp", "10s");
+        DEFAULTS.put("google-share", "0.3");
+        DEFAULTS.put("pages", "3");
+        DEFAULTS.put("think", "1s");
+        DEFAULTS.put("timeout", "10s");
+        DEFAULTS.put("wait", "120s");
+        DEFAULTS.put("setup-concurrency", "8");
+        DEFAULTS.put("skip-setup", "false");
+        DEFAULTS.put("user-prefix", "loadtest");
+        DEFAULTS.put("password", "LoadTest-password-1");
+        DEFAULTS.put("out", "loadtest-result.json");
+    }
+
+    private static final String LOGIN = "login";
+    private static final String GOOGLE_LOGIN = "google_login";
+    private static final String STATUS = "status";
+    private static final String VALIDATE_SESSION = "validate_session";
+
+    private final Map<String, String> options;
+    private final int students;
+    private final double googleShare;
+    private final String prefix;
+    private final String password;
+    private final EndpointStats stats = new EndpointStats(LOGIN, GOOGLE_LOGIN, STATUS, VALIDATE_SESSION);
+    private final AuthClient client;
+
+    ClassStartLoadTest(Map<String, String> options) {
+        this.options = options;
+        this.students = Integer.parseInt(options.get("students"));
+        this.googleShare = Double.parseDouble(options.get("google-share"));
+        this.prefix = options.get("user-prefix");
+        this.password = options.get("password");
+        Duration timeout = duration(options.get("timeout"));
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.client = new AuthClient(http, options.get("base-url"), timeout, stats);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (arg.equals("help") || arg.equals("--help")) {
+                System.out.println("Options (defaults shown):");
+                DEFAULTS.forEach((name, value) -> System.out.printf("  --%s=%s%n", name, value));
+                return;
+            }
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + " (see help)");
+            }
+            options.put(option[0], option[1]);
+        }
+
+        ClassStartLoadTest test = new ClassStartLoadTest(options);
+        if (!test.client.awaitHealthy(duration(options.get("wait")))) {
+            throw new IllegalStateException("AuthServer at " + options.get("base-url") + " is not healthy");
+        }
+        if (!Boolean.parseBoolean(options.get("skip-setup"))) {
+            test.setUp(Integer.parseInt(options.get("setup-concurrency")));
+        }
+        Duration elapsed = test.run(duration(options.get("ramp")), Integer.parseInt(options.get("pages")),
+                duration(options.get("think")));
+
+        System.out.printf("%nClass start: %d students over %s, %.0f%% Google, finished in %.1fs%n%n",
+                test.students, options.get("ramp"), test.googleShare * 100, elapsed.toMillis() / 1000.0);
+        System.out.print(test.stats.report(elapsed));
+        Path out = Path.of(options.get("out"));
+        test.stats.writeJson(out, elapsed, options);
+        System.out.println("\nResults written to " + out.toAbsolutePath());
+    }
+
+    // Every student exists and has picked a role before class; reruns reuse the same accounts
+    void setUp(int concurrency) throws Exception {
+        long start = System.nanoTime();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> created = new ArrayList<>();
+            for (int i = 0; i < students; i++) {
+                int student = i;
+                created.add(pool.submit(() -> {
+                    if (!prepare(student)) {
+                        failed.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : created) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf("Set up %d students in %.1fs (%d failed)%n",
+                students, (System.nanoTime() - start) / 1e9, failed.get());
+    }
+
+    private boolean prepare(int student) {
+        AuthClient.Response signIn;
+        boolean created = false;
+        if (isGoogle(student)) {
+            signIn = client.googleLogin(null, googleId(student), email(student), fullName(student));
+        } else {
+            signIn = client.register(email(student), password, fullName(student));
+            created = signIn.status() == 201;
+            if (signIn.status() == 409) {
+                signIn = client.login(null, email(student), password);
+            }
+        }
+        if (!signIn.ok() || signIn.userId() == null) {
+            return false;
+        }
+        return !(created || signIn.needsRole()) || client.assignRole(signIn.userId(), "student").ok();
+    }
+
+    Duration run(Duration ramp, int pages, Duration think) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(students);
+        ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch finished = new CountDownLatch(students);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < students; i++) {
+                int student = i;
+                long delay = ramp.toNanos() * i / students;
+                arrivals.schedule(() -> pool.execute(() -> {
+                    try {
+                        attendClass(student, pages, think);
+                    } finally {
+                        finished.countDown();
+                    }
+                }), delay, TimeUnit.NANOSECONDS);
+            }
+            finished.await();
+            return Duration.ofNanos(System.nanoTime() - start);
+        } finally {
+            arrivals.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+
+    private void attendClass(int student, int pages, Duration think) {
+        AuthClient.Response login = isGoogle(student) ?
+                client.googleLogin(GOOGLE_LOGIN, googleId(student), email(student), fullName(student)) :
+                client.login(LOGIN, email(student), password);
+        AuthClient.Session session = AuthClient.session(login);
+        if (session == null) {
+            return;
+        }
+
+        for (int page = 0; page < pages; page++) {
+            if (page > 0 && !pause(think)) {
+                return;
+            }
+            client.status(STATUS, session);
+            client.validateSession(VALIDATE_SESSION, session);
+        }
+    }
+
+    // Think time jittered by +/-50% so page loads do not arrive in lockstep
+    private static boolean pause(Duration think) {
+        long millis = (long) (think.toMillis() * ThreadLocalRandom.current().nextDouble(0.5, 1.5));
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Spreads Google students evenly through the arrival order
+    private boolean isGoogle(int student) {
+        return Math.floor((student + 1) * googleShare) > Math.floor(student * googleShare);
+    }
+
+    private String email(int student) {
+        return prefix + "-" + student + "@example.edu";
+    }
+
+    private String googleId(int student) {
+        return prefix + "-google-" + student;
+    }
+
+    private String fullName(int student) {
+        return "Load Test Student " + student;
+    }
+
+    // 250ms, 10s, 2m
+    static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration " + value);
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.Authserver.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Latencies and outcomes per endpoint label. Every sample is kept, so percentiles are exact
+final class EndpointStats {
+
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+
+    EndpointStats(String... endpoints) {
+        for (String endpoint : endpoints) {
+            recorders.put(endpoint, new Recorder());
+        }
+    }
+
+    // status 0 means the request failed without a response (timeout, connection refused)
+    void record(String endpoint, long nanos, int status, boolean ok) {
+        recorders.get(endpoint).add(nanos, status, ok);
+    }
+
+    String report(Duration elapsed) {
+        StringBuilder out = new StringBuilder(String.format(Locale.ROOT,
+                "%-18s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "error%", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        Recorder total = new Recorder();
+        recorders.forEach((endpoint, recorder) -> {
+            Summary summary = recorder.summarize(elapsed);
+            out.append(line(endpoint, summary));
+            total.addAll(recorder);
+        });
+        out.append(line("total", total.summarize(elapsed)));
+        recorders.forEach((endpoint, recorder) -> {
+            Map<Integer, Integer> statuses = recorder.statuses();
+            if (statuses.keySet().stream().anyMatch(status -> status == 0 || status >= 400)) {
+                out.append(String.format("%s status codes: %s%n", endpoint, statuses));
+            }
+        });
+        return out.toString();
+    }
+
+    void writeJson(Path file, Duration elapsed, Map<String, String> options) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"elapsedSeconds\": ")
+                .append(seconds(elapsed)).append(",\n  \"options\": {");
+        String separator = "\n";
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            json.append(separator).append("    \"").append(option.getKey()).append("\": \"")
+                    .append(option.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"endpoints\": {");
+        separator = "\n";
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            Summary s = entry.getValue().summarize(elapsed);
+            json.append(separator).append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"requests\": %d, \"errors\": %d, \"errorRate\": %.4f, \"throughput\": %.2f, " +
+                            "\"p50Ms\": %.2f, \"p90Ms\": %.2f, \"p99Ms\": %.2f, \"maxMs\": %.2f, \"statuses\": %s}",
+                    entry.getKey(), s.requests, s.errors, s.errorRate(), s.throughput,
+                    s.p50, s.p90, s.p99, s.max, statusesJson(entry.getValue().statuses())));
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        Files.writeString(file, json);
+    }
+
+    private static String line(String endpoint, Summary s) {
+        return String.format(Locale.ROOT, "%-18s %9d %8d %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                endpoint, s.requests, s.errors, s.errorRate() * 100, s.throughput, s.p50, s.p90, s.p99, s.max);
+    }
+
+    private static String statusesJson(Map<Integer, Integer> statuses) {
+        StringBuilder json = new StringBuilder("{");
+        statuses.forEach((status, count) -> json.append(json.length() > 1 ? ", " : "")
+                .append('"').append(status).append("\": ").append(count));
+        return json.append('}').toString();
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1e9;
+    }
+
+    private record Summary(int requests, int errors, double throughput, double p50, double p90, double p99, double max) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    private static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+        synchronized void add(long nanos, int status, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+            statuses.merge(status, 1, Integer::sum);
+        }
+
+        synchronized void addAll(Recorder other) {
+            long[] samples;
+            int otherErrors;
+            Map<Integer, Integer> otherStatuses;
+            synchronized (other) {
+                samples = Arrays.copyOf(other.latencies, other.count);
+                otherErrors = other.errors;
+                otherStatuses = new TreeMap<>(other.statuses);
+            }
+            if (count + samples.length > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + samples.length));
+            }
+            System.arraycopy(samples, 0, latencies, count, samples.length);
+            count += samples.length;
+            errors += otherErrors;
+            otherStatuses.forEach((status, n) -> statuses.merge(status, n, Integer::sum));
+        }
+
+        synchronized Map<Integer, Integer> statuses() {
+            return new TreeMap<>(statuses);
+        }
+
+        synchronized Summary summarize(Duration elapsed) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            double window = Math.max(seconds(elapsed), 1e-9);
+            return new Summary(count, errors, count / window,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    count == 0 ? 0 : sorted[count - 1] / 1e6);
+        }
+
+        // Nearest rank
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.Authserver.attendance;
+
+import com.example.Authserver.security.HmacKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Short-lived signed attendance codes for one class session: a1.<kid>.<payload>.<signature>, where
+// payload is base64url("courseId|sessionId|window"). Time is cut into windows of one rotation period;
+// the code for a window is the same on every instance, and it is accepted until the end of the next
+// window so a scan taken just before rotation still counts
+@Component
+public class AttendanceCodes {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceCodes.class);
+
+    private static final String VERSION = "a1";
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final HmacKeys keys;
+    private final Duration rotation;
+    private final Clock clock;
+
+    @Autowired
+    public AttendanceCodes(@Value("${attendance.qr.keys:}") String keys,
+                           @Value("${attendance.qr.rotation:30s}") Duration rotation) {
+        this(keys, rotation, Clock.systemUTC());
+    }
+
+    AttendanceCodes(String keys, Duration rotation, Clock clock) {
+        this.keys = new HmacKeys(keys, "attendance.qr.keys");
+        this.rotation = rotation;
+        this.clock = clock;
+        if (this.keys.isEphemeral()) {
+            log.warn("attendance.qr.keys is not set; using a random key, codes will not verify on other replicas");
+        }
+    }
+
+    // Course and session ids end up in the signed payload, so they are kept to a safe alphabet
+    public static boolean isValidId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+
+    public long currentWindow() {
+        return clock.millis() / rotation.toMillis();
+    }
+
+    // When the given window's code stops being the one shown
+    public Instant rotatesAt(long window) {
+        return Instant.ofEpochMilli((window + 1) * rotation.toMillis());
+    }
+
+    public Duration untilRotation() {
+        return Duration.between(clock.instant(), rotatesAt(currentWindow()));
+    }
+
+    public String issue(String courseId, String sessionId, long window) {
+        String payload = ENCODER.encodeToString(
+                (courseId + "|" + sessionId + "|" + window).getBytes(StandardCharsets.UTF_8));
+        String signed = VERSION + "." + keys.activeKeyId() + "." + payload;
+        return signed + "." + ENCODER.encodeToString(keys.sign(signed));
+    }
+
+    public Optional<AttendanceCode> verify(String code) {
+        if (code == null || !code.startsWith(VERSION + ".")) {
+            return Optional.empty();
+        }
+        String[] parts = code.split("\\.");
+        if (parts.length != 4) {
+            return Optional.empty();
+        }
+        try {
+            if (!keys.verify(parts[1], parts[0] + "." + parts[1] + "." + parts[2], DECODER.decode(parts[3]))) {
+                return Optional.empty();
+            }
+
+            String[] claims = new String(DECODER.decode(parts[2]), StandardCharsets.UTF_8).split("\\|", -1);
+            if (claims.length != 3) {
+                return Optional.empty();
+            }
+            long window = Long.parseLong(claims[2]);
+            long current = currentWindow();
+            if (window > current || window < current - 1) {
+                return Optional.empty();
+            }
+            return Optional.of(new AttendanceCode(claims[0], claims[1], window));
+        } catch (IllegalArgumentException e) {
+            // Malformed base64 or window
+            return Optional.empty();
+        }
+    }
+
+    public record AttendanceCode(String courseId, String sessionId, long window) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.Authserver.attendance;
+
+import com.example.Authserver.attendance.QrCodeRenderer.Format;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Serves the QR code a projector shows for a class session. Each code is rendered once into a cache
+// bounded by bytes, so every poll within a rotation window is a memory read. Shortly before each
+// rotation the next window's images are rendered for the sessions shown recently, so the first polls
+// after a rotation do not all wait on the encoder either
+@Component
+public class AttendanceQrService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceQrService.class);
+
+    private final AttendanceCodes codes;
+    private final QrCodeRenderer renderer;
+    private final String checkInUrl;
+    private final Duration rotation;
+    private final Duration prerenderLead;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<ImageKey, QrImage> images;
+    // Sessions polled within the last two windows, by format
+    private final Cache<ImageKey, Boolean> shown;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("attendance-qr-"));
+
+    @Autowired
+    public AttendanceQrService(AttendanceCodes codes, MeterRegistry meterRegistry,
+                               @Value("${attendance.qr.check-in-url}") String checkInUrl,
+                               @Value("${attendance.qr.rotation:30s}") Duration rotation,
+                               @Value("${attendance.qr.prerender-lead:2s}") Duration prerenderLead,
+                               @Value("${attendance.qr.size:480}") int size,
+                               @Value("${attendance.qr.cache.max-bytes:16777216}") long maxBytes) {
+        this.codes = codes;
+        this.renderer = new QrCodeRenderer(size);
+        this.checkInUrl = checkInUrl;
+        this.rotation = rotation;
+        this.prerenderLead = prerenderLead.compareTo(rotation.dividedBy(2)) < 0 ? prerenderLead : rotation.dividedBy(2);
+        this.meterRegistry = meterRegistry;
+        // A window's image is shown for one rotation and still valid for the next
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((ImageKey key, QrImage image) -> image.bytes().length)
+                .expireAfterWrite(rotation.multipliedBy(2))
+                .recordStats()
+                .build();
+        this.shown = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(rotation.multipliedBy(2))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, images, "attendance.qr.images");
+        scheduleNextPrerender();
+    }
+
+    public QrImage current(String courseId, String sessionId, Format format) {
+        ImageKey session = new ImageKey(courseId, sessionId, 0, format);
+        shown.get(session, key -> Boolean.TRUE);
+        // Concurrent polls of a code that is not cached yet wait for one render
+        return images.get(session.inWindow(codes.currentWindow()), this::render);
+    }
+
+    private QrImage render(ImageKey key) {
+        String code = codes.issue(key.courseId(), key.sessionId(), key.window());
+        String url = checkInUrl + (checkInUrl.contains("?") ? "&" : "?") + "code=" + URLEncoder.encode(code, StandardCharsets.UTF_8);
+        byte[] bytes = renderer.render(url, key.format());
+        meterRegistry.counter("attendance.qr.renders", "format", key.format().name().toLowerCase()).increment();
+        return new QrImage(code, bytes, key.format(), key.window(), codes.rotatesAt(key.window()));
+    }
+
+    private void scheduleNextPrerender() {
+        long delay = codes.untilRotation().minus(prerenderLead).toMillis();
+        if (delay <= 0) {
+            // Already inside the lead time of this rotation; aim for the next one
+            delay += rotation.toMillis();
+        }
+        scheduler.schedule(this::prerender, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void prerender() {
+        try {
+            long next = codes.currentWindow() + 1;
+            for (ImageKey session : shown.asMap().keySet()) {
+                images.get(session.inWindow(next), this::render);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to prerender attendance QR codes; they will be rendered on the next poll", e);
+        } finally {
+            scheduleNextPrerender();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private record ImageKey(String courseId, String sessionId, long window, Format format) {
+
+        private ImageKey inWindow(long window) {
+            return new ImageKey(courseId, sessionId, window, format);
+        }
+    }
+
+    public record QrImage(String code, byte[] bytes, Format format, long window, Instant rotatesAt) {
+    }
+}
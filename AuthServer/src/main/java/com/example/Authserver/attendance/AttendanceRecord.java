@@ -0,0 +1,29 @@
+package com.example.Authserver.attendance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One check-in as stored in the attendance collection. The document id is derived from the course,
+// session and user, so writing a record twice (a retried batch, a scan on another instance) leaves
+// one document rather than two. The separator is outside the id alphabets (AttendanceCodes ids may
+// contain '_'), so no two records share an id
+public record AttendanceRecord(String courseId, String sessionId, String userId, String name,
+                               String uid, String role, String timestamp) {
+
+    public String documentId() {
+        return courseId + "|" + sessionId + "|" + userId;
+    }
+
+    // Same fields as the Python service's /attend handler writes, plus the session
+    public Map<String, Object> toDocument() {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("name", name);
+        document.put("uid", uid);
+        document.put("timestamp", timestamp);
+        document.put("courseId", courseId);
+        document.put("sessionId", sessionId);
+        document.put("role", role);
+        document.put("authServerId", userId);
+        return document;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.Authserver.attendance;
+
+import java.util.List;
+
+// Where accepted check-ins are written. A batch is written entirely or not at all; on failure the
+// caller writes it again, so implementations must treat a repeated record as the same record
+public interface AttendanceSink {
+
+    void write(List<AttendanceRecord> batch) throws Exception;
+
+    // Whether writing the same batch again may succeed. A sink that cannot tell keeps it retrying
+    default boolean isRetryable(Exception error) {
+        return true;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.Authserver.attendance;
+
+import com.example.Authserver.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Batches attendance writes. A check-in is taken once per user and class session (tracked in memory),
+// put on a bounded queue, and written by a few writer threads in batches. The returned future completes
+// only once its batch is written, so a check-in is never reported as recorded while it is only queued.
+// A full queue refuses new check-ins (the client retries) instead of growing without limit. A batch
+// that failed on a transient error is retried until it is written; one the sink rejects outright is
+// logged, counted and reported as rejected. Check-ins that are not written are forgotten, so a rescan
+// goes through. On shutdown the queue is drained before the sink goes away
+@Component
+public class CheckInService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckInService.class);
+
+    // Same format as the Python service's datetime.utcnow().isoformat(), so records sort together
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(5);
+
+    public enum Outcome { RECORDED, DUPLICATE, INVALID_CODE, BUSY, REJECTED }
+
+    public record Result(Outcome outcome, AttendanceRecord record) {
+    }
+
+    private record Pending(String key, AttendanceRecord record, CompletableFuture<Result> done) {
+    }
+
+    private final AttendanceCodes codes;
+    private final AttendanceSink sink;
+    private final Clock clock;
+    private final int maxBatchSize;
+    private final Duration batchWindow;
+    private final Duration retryDelay;
+    private final Duration shutdownTimeout;
+
+    // Keys are userId|courseId|sessionId, mapped to the first check-in's outcome; kept long enough to
+    // cover any class session
+    private final Cache<String, CompletableFuture<Result>> checkedIn;
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService writers;
+    private volatile boolean running = true;
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSizes;
+    private final Timer writeTimer;
+    private final Counter failedWrites;
+    private final Counter droppedCheckIns;
+
+    @Autowired
+    public CheckInService(AttendanceCodes codes, AttendanceSink sink, MeterRegistry meterRegistry,
+                          @Value("${attendance.check-in.queue-capacity:10000}") int queueCapacity,
+                          @Value("${attendance.check-in.writers:2}") int writerCount,
+                          @Value("${attendance.check-in.max-batch-size:400}") int maxBatchSize,
+                          @Value("${attendance.check-in.batch-window:50ms}") Duration batchWindow,
+                          @Value("${attendance.check-in.retry-delay:100ms}") Duration retryDelay,
+                          @Value("${attendance.check-in.dedupe.ttl:6h}") Duration dedupeTtl,
+                          @Value("${attendance.check-in.dedupe.max-size:200000}") long dedupeMaxSize,
+                          @Value("${attendance.check-in.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this(codes, sink, meterRegistry, Clock.systemUTC(), queueCapacity, writerCount, maxBatchSize,
+                batchWindow, retryDelay, dedupeTtl, dedupeMaxSize, shutdownTimeout);
+    }
+
+    CheckInService(AttendanceCodes codes, AttendanceSink sink, MeterRegistry meterRegistry, Clock clock,
+                   int queueCapacity, int writerCount, int maxBatchSize, Duration batchWindow, Duration retryDelay,
+                   Duration dedupeTtl, long dedupeMaxSize, Duration shutdownTimeout) {
+        this.codes = codes;
+        this.sink = sink;
+        this.clock = clock;
+        // Firestore allows 500 writes per batch
+        this.maxBatchSize = Math.min(maxBatchSize, 500);
+        this.batchWindow = batchWindow;
+        this.retryDelay = retryDelay;
+        this.shutdownTimeout = shutdownTimeout;
+        this.checkedIn = Caffeine.newBuilder()
+                .maximumSize(dedupeMaxSize)
+                .expireAfterWrite(dedupeTtl)
+                .build();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.meterRegistry = meterRegistry;
+        this.batchSizes = DistributionSummary.builder("attendance.write.batch.size").register(meterRegistry);
+        this.writeTimer = Timer.builder("attendance.write").register(meterRegistry);
+        this.failedWrites = meterRegistry.counter("attendance.write.failures");
+        this.droppedCheckIns = meterRegistry.counter("attendance.write.dropped");
+        Gauge.builder("attendance.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.writers = Executors.newFixedThreadPool(writerCount, new CustomizableThreadFactory("attendance-write-"));
+        for (int i = 0; i < writerCount; i++) {
+            writers.execute(this::writeLoop);
+        }
+    }
+
+    public CompletableFuture<Result> checkIn(User user, String code) {
+        return accept(user, code).thenApply(result -> {
+            meterRegistry.counter("attendance.check-ins", "outcome", result.outcome().name().toLowerCase()).increment();
+            return result;
+        });
+    }
+
+    private CompletableFuture<Result> accept(User user, String code) {
+        AttendanceCodes.AttendanceCode verified = codes.verify(code).orElse(null);
+        if (verified == null) {
+            return CompletableFuture.completedFuture(new Result(Outcome.INVALID_CODE, null));
+        }
+
+        AttendanceRecord record = new AttendanceRecord(verified.courseId(), verified.sessionId(), user.getId(),
+                user.getFullName(), user.getStudentId(), user.getRole(),
+                LocalDateTime.now(clock).format(TIMESTAMP));
+        String key = user.getId() + "|" + verified.courseId() + "|" + verified.sessionId();
+        CompletableFuture<Result> done = new CompletableFuture<>();
+        CompletableFuture<Result> first = checkedIn.asMap().putIfAbsent(key, done);
+        if (first != null) {
+            // A duplicate only once the first check-in is written; until then it shares its fate
+            return first.thenApply(result -> result.outcome() == Outcome.RECORDED
+                    ? new Result(Outcome.DUPLICATE, record) : result);
+        }
+        if (!running || !queue.offer(new Pending(key, record, done))) {
+            finish(key, done, new Result(Outcome.BUSY, record));
+        }
+        return done;
+    }
+
+    // Not written, so a retry must not count as a duplicate
+    private void finish(String key, CompletableFuture<Result> done, Result result) {
+        if (result.outcome() != Outcome.RECORDED) {
+            checkedIn.asMap().remove(key, done);
+        }
+        done.complete(result);
+    }
+
+    private void finish(List<Pending> batch, Outcome outcome) {
+        for (Pending pending : batch) {
+            finish(pending.key(), pending.done(), new Result(outcome, pending.record()));
+        }
+    }
+
+    // Waits for a first record, then gives a burst up to batchWindow to fill the batch
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindow.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeUntilDone(batch);
+            } catch (InterruptedException e) {
+                // Only shutdown interrupts, after its timeout; what is left in the queue is reported there
+                finish(batch, Outcome.BUSY);
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeUntilDone(List<Pending> batch) throws InterruptedException {
+        List<AttendanceRecord> records = batch.stream().map(Pending::record).toList();
+        long delay = retryDelay.toMillis();
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                sink.write(records);
+                writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                finish(batch, Outcome.RECORDED);
+                return;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failedWrites.increment();
+                if (!sink.isRetryable(e)) {
+                    droppedCheckIns.increment(batch.size());
+                    log.error("Attendance write batch of {} was rejected, dropping it: {}", batch.size(),
+                            records.stream().map(AttendanceRecord::documentId).toList(), e);
+                    finish(batch, Outcome.REJECTED);
+                    return;
+                }
+                log.warn("Attendance write batch of {} failed, retrying in {} ms", batch.size(), delay, e);
+            }
+            Thread.sleep(delay);
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY.toMillis());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                writers.shutdownNow();
+                List<Pending> unwritten = new ArrayList<>();
+                queue.drainTo(unwritten);
+                finish(unwritten, Outcome.BUSY);
+                log.error("{} queued check-ins were not written before shutdown", unwritten.size());
+            }
+        } catch (InterruptedException e) {
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
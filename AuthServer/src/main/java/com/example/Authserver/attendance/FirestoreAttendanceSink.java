@@ -0,0 +1,47 @@
+package com.example.Authserver.attendance;
+
+import com.example.Authserver.repository.FirestoreFutures;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import io.grpc.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// One WriteBatch commit per batch into the attendance collection the Python service reads
+@Component
+@ConditionalOnProperty(name = "user.store.type", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreAttendanceSink implements AttendanceSink {
+
+    // Contention, overload and timeouts pass; anything else (a rejected document, missing
+    // permissions) fails the same way again
+    private static final Set<Status.Code> RETRYABLE = EnumSet.of(Status.Code.ABORTED, Status.Code.UNAVAILABLE,
+            Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED, Status.Code.INTERNAL);
+
+    private final CollectionReference attendance;
+
+    @Autowired
+    public FirestoreAttendanceSink(Firestore firestore) {
+        this.attendance = firestore.collection("attendance");
+    }
+
+    @Override
+    public void write(List<AttendanceRecord> batch) throws Exception {
+        WriteBatch writes = attendance.getFirestore().batch();
+        for (AttendanceRecord record : batch) {
+            // set, not create: a retried batch overwrites what an earlier attempt may have committed
+            writes.set(attendance.document(record.documentId()), record.toDocument());
+        }
+        writes.commit().get();
+    }
+
+    @Override
+    public boolean isRetryable(Exception error) {
+        return RETRYABLE.contains(FirestoreFutures.statusCode(error));
+    }
+}
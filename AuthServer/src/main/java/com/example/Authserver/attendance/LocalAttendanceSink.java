@@ -0,0 +1,26 @@
+package com.example.Authserver.attendance;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps check-ins in memory when users are not stored in Firestore (local development, tests)
+@Component
+@ConditionalOnExpression("'${user.store.type:firestore}' != 'firestore'")
+public class LocalAttendanceSink implements AttendanceSink {
+
+    private final Map<String, AttendanceRecord> records = new ConcurrentHashMap<>();
+
+    @Override
+    public void write(List<AttendanceRecord> batch) {
+        batch.forEach(record -> records.put(record.documentId(), record));
+    }
+
+    public Collection<AttendanceRecord> records() {
+        return records.values();
+    }
+}
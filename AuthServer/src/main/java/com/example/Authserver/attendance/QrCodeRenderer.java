@@ -0,0 +1,119 @@
+package com.example.Authserver.attendance;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Encodes text as a QR code PNG or SVG. Output buffers are pooled rather than thread-local, since
+// request threads may be virtual; an empty pool just allocates a new buffer
+public class QrCodeRenderer {
+
+    public enum Format {
+        PNG("image/png"),
+        SVG("image/svg+xml");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+    }
+
+    private static final int POOL_SIZE = 4;
+    // Codes are read off a projector across a room, so favour fewer, larger modules over redundancy
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M,
+            EncodeHintType.CHARACTER_SET, StandardCharsets.UTF_8.name(),
+            EncodeHintType.MARGIN, 2);
+
+    private final QRCodeWriter writer = new QRCodeWriter();
+    private final int size;
+    private final BlockingQueue<ByteArrayOutputStream> pngBuffers = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<StringBuilder> svgBuffers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    // size is the PNG width and height in pixels; SVGs scale to whatever the page gives them
+    public QrCodeRenderer(int size) {
+        this.size = size;
+    }
+
+    public byte[] render(String text, Format format) {
+        return format == Format.PNG ? png(text) : svg(text);
+    }
+
+    private byte[] png(String text) {
+        BitMatrix matrix = encode(text, size);
+        ByteArrayOutputStream out = pngBuffers.poll();
+        if (out == null) {
+            out = new ByteArrayOutputStream(8 * 1024);
+        }
+        try {
+            // Black and white only, so this writes a 1-bit PNG
+            MatrixToImageWriter.writeToStream(matrix, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write QR code PNG", e);
+        } finally {
+            out.reset();
+            pngBuffers.offer(out);
+        }
+    }
+
+    // One path with a horizontal run per row of dark modules, in module units
+    private byte[] svg(String text) {
+        BitMatrix matrix = encode(text, 0);
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        StringBuilder svg = svgBuffers.poll();
+        if (svg == null) {
+            svg = new StringBuilder(16 * 1024);
+        }
+        try {
+            svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                    .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+            for (int y = 0; y < height; y++) {
+                int x = 0;
+                while (x < width) {
+                    if (!matrix.get(x, y)) {
+                        x++;
+                        continue;
+                    }
+                    int start = x;
+                    while (x < width && matrix.get(x, y)) {
+                        x++;
+                    }
+                    svg.append('M').append(start).append(' ').append(y).append('h').append(x - start).append("v1h-").append(x - start).append('z');
+                }
+            }
+            svg.append("\"/></svg>");
+            return svg.toString().getBytes(StandardCharsets.UTF_8);
+        } finally {
+            svg.setLength(0);
+            svgBuffers.offer(svg);
+        }
+    }
+
+    // A size of 0 gives one pixel per module
+    private BitMatrix encode(String text, int size) {
+        try {
+            return writer.encode(text, BarcodeFormat.QR_CODE, size, size, HINTS);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("Unable to encode QR code", e);
+        }
+    }
+}
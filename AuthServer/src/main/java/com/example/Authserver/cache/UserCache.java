@@ -0,0 +1,200 @@
+package com.example.Authserver.cache;
+
+import com.example.Authserver.entity.User;
+import com.example.Authserver.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class UserCache {
+
+    // Users are stored once by id; email and googleId only point at the id
+    private final Cache<String, User> usersById;
+    // Users read without their password hash, for lookups that never need it. A whole user replaces
+    // its profile, and both go on invalidation
+    private final Cache<String, User> profilesById;
+    // Keyed by UserRepository.normalizeEmail; lookups pass the email already normalized
+    private final Cache<String, String> idsByEmail;
+    private final Cache<String, String> idsByGoogleId;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    // Bumped by every invalidation, whether or not the user was cached, so that a lookup which
+    // started before it can tell its result may be stale
+    private final AtomicLong version = new AtomicLong();
+
+    public UserCache(@Value("${user.cache.max-size:10000}") long maxSize,
+                     @Value("${user.cache.ttl:5m}") Duration ttl) {
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.profilesById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.idsByGoogleId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Optional<User> getById(String id) {
+        return lookup(id);
+    }
+
+    public Optional<User> getByEmail(String email) {
+        return lookup(idsByEmail.getIfPresent(email));
+    }
+
+    public Optional<User> getByGoogleId(String googleId) {
+        return lookup(idsByGoogleId.getIfPresent(googleId));
+    }
+
+    // Whole users answer profile lookups too, without their password hash
+    public Optional<User> getProfileById(String id) {
+        return lookupProfile(id);
+    }
+
+    public Optional<User> getProfileByEmail(String email) {
+        return lookupProfile(idsByEmail.getIfPresent(email));
+    }
+
+    public void put(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        // Drop pointers left behind by a previous version of this user
+        remove(user.getId());
+
+        usersById.put(user.getId(), new User(user));
+        if (user.getEmail() != null) {
+            idsByEmail.put(UserRepository.normalizeEmail(user.getEmail()), user.getId());
+        }
+        if (user.getGoogleId() != null) {
+            idsByGoogleId.put(user.getGoogleId(), user.getId());
+        }
+    }
+
+    // Stamp a store lookup with version() before it starts; its result is only kept if no
+    // invalidation happened in between
+    public long version() {
+        return version.get();
+    }
+
+    public void put(User user, long since) {
+        if (version.get() == since) {
+            put(user);
+            discardIfInvalidatedSince(user, since);
+        }
+    }
+
+    public void putProfile(User profile, long since) {
+        if (version.get() == since) {
+            putProfile(profile);
+            discardIfInvalidatedSince(profile, since);
+        }
+    }
+
+    // An invalidation bumps the version before removing, so one racing with the put either removes
+    // the entry itself or is seen here
+    private void discardIfInvalidatedSince(User user, long since) {
+        if (version.get() != since && user != null && user.getId() != null) {
+            remove(user.getId());
+        }
+    }
+
+    public void putProfile(User profile) {
+        if (profile == null || profile.getId() == null || usersById.getIfPresent(profile.getId()) != null) {
+            return;
+        }
+        remove(profile.getId());
+
+        profilesById.put(profile.getId(), profile.withoutPassword());
+        if (profile.getEmail() != null) {
+            idsByEmail.put(UserRepository.normalizeEmail(profile.getEmail()), profile.getId());
+        }
+        if (profile.getGoogleId() != null) {
+            idsByGoogleId.put(profile.getGoogleId(), profile.getId());
+        }
+    }
+
+    public void invalidate(String id) {
+        version.incrementAndGet();
+        if (remove(id)) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        usersById.invalidateAll();
+        profilesById.invalidateAll();
+        idsByEmail.invalidateAll();
+        idsByGoogleId.invalidateAll();
+    }
+
+    public Stats stats() {
+        return new Stats(usersById.estimatedSize(), hits.sum(), misses.sum(),
+                usersById.stats().evictionCount(), invalidations.sum());
+    }
+
+    private Optional<User> lookup(String id) {
+        User user = id == null ? null : usersById.getIfPresent(id);
+        if (user == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        // Hand out copies so callers can mutate freely before saving
+        return Optional.of(new User(user));
+    }
+
+    private Optional<User> lookupProfile(String id) {
+        User user = id == null ? null : usersById.getIfPresent(id);
+        if (user == null && id != null) {
+            user = profilesById.getIfPresent(id);
+        }
+        if (user == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(user.withoutPassword());
+    }
+
+    // Drops the user or its profile, whichever is held, with the pointers to it
+    private boolean remove(String id) {
+        User previous = usersById.asMap().remove(id);
+        User previousProfile = profilesById.asMap().remove(id);
+        if (previous == null) {
+            previous = previousProfile;
+        }
+        if (previous == null) {
+            return false;
+        }
+        if (previous.getEmail() != null) {
+            idsByEmail.asMap().remove(UserRepository.normalizeEmail(previous.getEmail()), id);
+        }
+        if (previous.getGoogleId() != null) {
+            idsByGoogleId.asMap().remove(previous.getGoogleId(), id);
+        }
+        return true;
+    }
+
+    public record Stats(long size, long hits, long misses, long evictions, long invalidations) {
+    }
+}
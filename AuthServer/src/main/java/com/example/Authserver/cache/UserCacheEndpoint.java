@@ -0,0 +1,24 @@
+package com.example.Authserver.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+// Exposed at /actuator/usercache for sizing the cache
+@Component
+@Endpoint(id = "usercache")
+public class UserCacheEndpoint {
+
+    private final UserCache userCache;
+
+    @Autowired
+    public UserCacheEndpoint(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @ReadOperation
+    public UserCache.Stats stats() {
+        return userCache.stats();
+    }
+}
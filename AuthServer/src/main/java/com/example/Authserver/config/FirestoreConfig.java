@@ -1,29 +1,87 @@
 package com.example.Authserver.config;
 
+import com.google.api.gax.grpc.ChannelPoolSettings;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.api.gax.retrying.RetrySettings;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.FirestoreClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
 
 @Configuration
+@ConditionalOnProperty(name = "user.store.type", havingValue = "firestore", matchIfMissing = true)
 public class FirestoreConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(FirestoreConfig.class);
+
     @Autowired
     private Environment env;
 
+    @Value("${spring.cloud.gcp.project-id}")
+    private String projectId;
+
+    // gRPC channels to Firestore; 0 keeps the library default (one channel)
+    @Value("${firestore.channel.pool-size:0}")
+    private int channelPoolSize;
+
+    @Value("${firestore.channel.keep-alive:60s}")
+    private Duration keepAlive;
+
+    @Value("${firestore.channel.keep-alive-timeout:10s}")
+    private Duration keepAliveTimeout;
+
+    // Threads that complete Firestore futures; 0 keeps the library's shared pool
+    @Value("${firestore.callback-threads:0}")
+    private int callbackThreads;
+
+    @Value("${firestore.rpc.timeout:2s}")
+    private Duration rpcTimeout;
+
+    @Value("${firestore.rpc.deadline:5s}")
+    private Duration deadline;
+
+    @Value("${firestore.rpc.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${firestore.rpc.initial-retry-delay:50ms}")
+    private Duration initialRetryDelay;
+
+    @Value("${firestore.rpc.max-retry-delay:1s}")
+    private Duration maxRetryDelay;
+
     @Bean
     public Firestore firestore() throws IOException {
+        // Local emulator (docker-compose, load tests): no Firebase app. The options supply the emulator's
+        // credentials; explicit NoCredentials would send the client to the production host instead
+        String emulatorHost = env.getProperty("firestore.emulator-host", "");
+        if (!emulatorHost.isBlank()) {
+            return FirestoreOptions.newBuilder()
+                    .setProjectId(projectId)
+                    .setRetrySettings(retrySettings())
+                    .setEmulatorHost(emulatorHost)
+                    .build()
+                    .getService();
+        }
+
         GoogleCredentials credentials;
 
         try {
@@ -44,14 +102,20 @@ public class FirestoreConfig {
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Could not load the service account credentials, using application default credentials", e);
             // Fallback to application default credentials
             credentials = GoogleCredentials.getApplicationDefault();
         }
 
         FirebaseOptions options = FirebaseOptions.builder()
                 .setCredentials(credentials)
-                .setProjectId("qr-attendance-455219")
+                .setProjectId(projectId)
+                .setFirestoreOptions(FirestoreOptions.newBuilder()
+                        .setCredentials(credentials)
+                        .setProjectId(projectId)
+                        .setChannelProvider(channelProvider())
+                        .setRetrySettings(retrySettings())
+                        .build())
                 .build();
 
         // Initialize Firebase app if not already initialized
@@ -61,4 +125,36 @@ public class FirestoreConfig {
 
         return FirestoreClient.getFirestore();
     }
-}
\ No newline at end of file
+
+    // Applied to every unary call and to the streamed reads (queries, getAll). The library default
+    // retries for up to a minute, far longer than anyone waits on a login
+    private RetrySettings retrySettings() {
+        return RetrySettings.newBuilder()
+                .setTotalTimeoutDuration(deadline)
+                .setInitialRpcTimeoutDuration(rpcTimeout)
+                .setMaxRpcTimeoutDuration(rpcTimeout)
+                .setRpcTimeoutMultiplier(1.0)
+                .setMaxAttempts(maxAttempts)
+                .setInitialRetryDelayDuration(initialRetryDelay)
+                .setMaxRetryDelayDuration(maxRetryDelay)
+                .setRetryDelayMultiplier(2.0)
+                .build();
+    }
+
+    private InstantiatingGrpcChannelProvider channelProvider() {
+        // Keep-alive pings hold idle connections open between bursts instead of reconnecting
+        InstantiatingGrpcChannelProvider.Builder channels = FirestoreOptions.getDefaultTransportChannelProviderBuilder()
+                .setKeepAliveTimeDuration(keepAlive)
+                .setKeepAliveTimeoutDuration(keepAliveTimeout)
+                .setKeepAliveWithoutCalls(true);
+        if (channelPoolSize > 0) {
+            channels.setChannelPoolSettings(ChannelPoolSettings.staticallySized(channelPoolSize));
+        }
+        if (callbackThreads > 0) {
+            CustomizableThreadFactory threads = new CustomizableThreadFactory("firestore-grpc-");
+            threads.setDaemon(true);
+            channels.setExecutor(Executors.newFixedThreadPool(callbackThreads, threads));
+        }
+        return channels.build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.Authserver.config;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QuerySnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Connects every channel and fetches an access token before the first burst of logins does. Spring Boot
+// only moves readiness to ACCEPTING_TRAFFIC once the ApplicationReadyEvent listeners have returned, so
+// /actuator/health/readiness reports UP after this finishes (or times out). That keeps traffic away only
+// where the platform probes that endpoint: Cloud Run's default TCP probe passes as soon as the port
+// opens, so cloudbuild.yaml gives it an HTTP startup probe on readiness. Off under fast-start
+// (application-fast-start.properties), which leaves the Firestore client to the first request
+@Component
+@ConditionalOnExpression("${firestore.warm-up:true} and '${user.store.type:firestore}' == 'firestore'")
+public class FirestoreWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(FirestoreWarmUp.class);
+
+    private final Firestore firestore;
+
+    @Value("${firestore.channel.pool-size:0}")
+    private int channelPoolSize;
+
+    @Value("${firestore.rpc.deadline:5s}")
+    private Duration deadline;
+
+    @Autowired
+    public FirestoreWarmUp(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        // The pool gives concurrent calls to different channels, so one read per channel connects them all
+        int channels = Math.max(1, channelPoolSize);
+        List<ApiFuture<QuerySnapshot>> reads = new ArrayList<>();
+        for (int i = 0; i < channels; i++) {
+            reads.add(firestore.collection("users").limit(1).get());
+        }
+        try {
+            ApiFutures.allAsList(reads).get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Firestore warm-up: {} channel(s) ready in {} ms", channels,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Firestore warm-up failed, the first requests will connect instead", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.Authserver.config;
+
+import com.example.Authserver.dto.AuthResponse;
+import com.example.Authserver.dto.GoogleLoginRequest;
+import com.example.Authserver.dto.LoginRequest;
+import com.example.Authserver.dto.RegisterRequest;
+import com.example.Authserver.dto.RoleRequest;
+import com.example.Authserver.dto.StatusResponse;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class JacksonConfig {
+
+    private static final List<Class<?>> REQUESTS = List.of(
+            LoginRequest.class, GoogleLoginRequest.class, RegisterRequest.class, RoleRequest.class);
+    private static final List<Class<?>> RESPONSES = List.of(AuthResponse.class, StatusResponse.class);
+
+    // Picked up by Boot's ObjectMapper, which is the one Spring MVC reads and writes bodies with
+    @Bean
+    public static Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // readerFor/writerFor resolve and cache the root (de)serializers, so the first sign-ins after a
+    // deploy do not pay for introspecting the DTOs and generating their accessors
+    @Bean
+    public ApplicationRunner prefetchDtoSerializers(ObjectMapper objectMapper) {
+        return args -> {
+            REQUESTS.forEach(objectMapper::readerFor);
+            RESPONSES.forEach(objectMapper::writerFor);
+        };
+    }
+}
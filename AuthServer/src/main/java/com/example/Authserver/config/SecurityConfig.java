@@ -1,17 +1,30 @@
 package com.example.Authserver.config;
 
 import com.example.Authserver.security.OAuth2SuccessHandler;
+import com.example.Authserver.security.PasswordEncoderCalibration;
+import com.example.Authserver.security.ServiceToken;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
@@ -21,15 +34,45 @@ public class SecurityConfig {
     @Lazy
     private OAuth2SuccessHandler oAuth2SuccessHandler;
 
+    // Actuator: health stays open for probes; metrics and the cache endpoint are for backend services
+    // only. Scrapers get a 401 rather than the login redirect of the main chain
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http, ServiceToken serviceToken) throws Exception {
+        http
+                .securityMatcher("/actuator/**")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(authorize -> authorize
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .anyRequest().access((authentication, context) ->
+                                new AuthorizationDecision(serviceToken.matches(context.getRequest())))
+                )
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
+                // No-store everywhere except responses that set their own Cache-Control. For async
+                // handlers the default writer runs before the handler, so it cannot see theirs
+                .headers(headers -> headers
+                        .cacheControl(cacheControl -> cacheControl.disable())
+                        .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                                new NegatedRequestMatcher(new OrRequestMatcher(
+                                        new AntPathRequestMatcher("/api/auth/status"),
+                                        new AntPathRequestMatcher("/api/attendance/courses/*/sessions/*/qr"))),
+                                new CacheControlHeadersWriter())))
                 .authorizeHttpRequests(authorize -> authorize
                         // Allow OPTIONS requests for CORS preflight
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         // Auth endpoints
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Attendance endpoints check the session or token themselves, like the auth endpoints
+                        .requestMatchers("/api/attendance/**").permitAll()
                         .requestMatchers("/oauth2/**", "/login/**").permitAll()
                         // Static content and frontend
                         .requestMatchers("/", "/index.html", "/static/**").permitAll()
@@ -52,7 +95,15 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${auth.password.target-hash-time:250ms}") Duration targetHashTime,
+                                           @Value("${auth.password.bcrypt.cost:0}") int bcryptCost,
+                                           @Value("${auth.password.bcrypt.min-cost:10}") int bcryptMinCost,
+                                           @Value("${auth.password.bcrypt.max-cost:14}") int bcryptMaxCost,
+                                           @Value("${auth.password.argon2.iterations:0}") int argon2Iterations,
+                                           @Value("${auth.password.argon2.max-iterations:10}") int argon2MaxIterations) {
+        // A cost/iteration count of 0 means calibrate against the target hash time on this host
+        return PasswordEncoderCalibration.create(algorithm, targetHashTime, bcryptCost, bcryptMinCost,
+                bcryptMaxCost, argon2Iterations, argon2MaxIterations);
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.example.Authserver.controller;
+
+import com.example.Authserver.attendance.AttendanceCodes;
+import com.example.Authserver.attendance.AttendanceQrService;
+import com.example.Authserver.attendance.CheckInService;
+import com.example.Authserver.attendance.QrCodeRenderer.Format;
+import com.example.Authserver.dto.CheckInRequest;
+import com.example.Authserver.security.SessionTokenService;
+import com.example.Authserver.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Tag(name = "Attendance Controller", description = "APIs for attendance QR codes and check-ins")
+@RestController
+@RequestMapping("/api/attendance")
+public class AttendanceController {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceController.class);
+
+    private final AttendanceQrService qrService;
+    private final CheckInService checkInService;
+    private final UserService userService;
+    private final SessionTokenService sessionTokens;
+
+    @Autowired
+    public AttendanceController(AttendanceQrService qrService, CheckInService checkInService,
+                                UserService userService, SessionTokenService sessionTokens) {
+        this.qrService = qrService;
+        this.checkInService = checkInService;
+        this.userService = userService;
+        this.sessionTokens = sessionTokens;
+    }
+
+    @Operation(summary = "Attendance QR code", description = "Returns the current signed check-in QR code for a class session as PNG or SVG (professors only)")
+    @GetMapping("/courses/{courseId}/sessions/{sessionId}/qr")
+    public CompletableFuture<ResponseEntity<?>> qrCode(@PathVariable String courseId, @PathVariable String sessionId,
+                                                       @RequestParam(defaultValue = "png") String format,
+                                                       HttpServletRequest request) {
+        if (!AttendanceCodes.isValidId(courseId) || !AttendanceCodes.isValidId(sessionId)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Course and session ids may only contain letters, digits, '-' and '_'")));
+        }
+        Format imageFormat;
+        try {
+            imageFormat = Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Format must be png or svg")));
+        }
+
+        String callerId = sessionTokens.currentUserId(request);
+        if (callerId == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Not authenticated")));
+        }
+
+        // The caller comes from the user cache, so a projector polling every few seconds stays in memory
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        return userService.findProfileByIdAsync(callerId)
+                .<ResponseEntity<?>>thenApply(caller -> {
+                    if (caller.isEmpty() || !"professor".equalsIgnoreCase(caller.get().getRole())) {
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                                .body(Map.of("error", "Only professors can show attendance codes"));
+                    }
+
+                    AttendanceQrService.QrImage image = qrService.current(courseId, sessionId, imageFormat);
+                    // Cached by the browser until the code rotates; the ETag changes with the window
+                    String etag = "\"" + image.window() + "\"";
+                    long maxAge = Math.max(0, Duration.between(Instant.now(), image.rotatesAt()).toSeconds());
+                    CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePrivate();
+                    if (etag.equals(ifNoneMatch)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+                    }
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType(image.format().contentType()))
+                            .eTag(etag)
+                            .cacheControl(cacheControl)
+                            .body(image.bytes());
+                })
+                .exceptionally(e -> {
+                    log.error("Error rendering attendance QR code", e);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body(Map.of("error", "Error rendering attendance QR code"));
+                });
+    }
+
+    @Operation(summary = "Attendance check-in", description = "Records the caller's attendance for the class session named by a scanned QR code")
+    @PostMapping("/check-in")
+    public CompletableFuture<ResponseEntity<?>> checkIn(@Valid @RequestBody CheckInRequest checkIn,
+                                                        HttpServletRequest request) {
+        String callerId = sessionTokens.currentUserId(request);
+        if (callerId == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Not authenticated")));
+        }
+
+        return userService.findProfileByIdAsync(callerId)
+                .<ResponseEntity<?>>thenCompose(caller -> {
+                    if (caller.isEmpty()) {
+                        return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(Map.of("error", "Invalid session")));
+                    }
+
+                    // Completes once the check-in is written, not when it is queued
+                    return checkInService.checkIn(caller.get(), checkIn.code()).<ResponseEntity<?>>thenApply(result ->
+                            switch (result.outcome()) {
+                                case RECORDED -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                                        "status", "recorded",
+                                        "courseId", result.record().courseId(),
+                                        "sessionId", result.record().sessionId(),
+                                        "timestamp", result.record().timestamp()));
+                                case DUPLICATE -> ResponseEntity.ok(Map.of(
+                                        "status", "duplicate",
+                                        "courseId", result.record().courseId(),
+                                        "sessionId", result.record().sessionId()));
+                                case INVALID_CODE -> ResponseEntity.badRequest()
+                                        .body(Map.of("error", "Invalid or expired attendance code"));
+                                case BUSY -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                        .header(HttpHeaders.RETRY_AFTER, "1")
+                                        .body(Map.of("error", "Too many check-ins in progress, please retry"));
+                                case REJECTED -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                        .body(Map.of("error", "Attendance could not be recorded, please scan again"));
+                            });
+                })
+                .exceptionally(e -> {
+                    log.error("Error recording attendance", e);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body(Map.of("error", "Error recording attendance"));
+                });
+    }
+}
@@ -1,22 +1,52 @@
 package com.example.Authserver.controller;
 
+import com.example.Authserver.dto.AuthResponse;
+import com.example.Authserver.dto.BatchGetRequest;
+import com.example.Authserver.dto.GoogleLoginRequest;
+import com.example.Authserver.dto.LoginRequest;
+import com.example.Authserver.dto.RegisterRequest;
+import com.example.Authserver.dto.RoleRequest;
+import com.example.Authserver.dto.StatusResponse;
 import com.example.Authserver.entity.User;
+import com.example.Authserver.events.UserChangeFeed;
+import com.example.Authserver.repository.DuplicateUserException;
+import com.example.Authserver.security.PasswordHasherBusyException;
+import com.example.Authserver.security.ServiceToken;
+import com.example.Authserver.security.SessionTokenService;
+import com.example.Authserver.service.UserImportService;
 import com.example.Authserver.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Tag(name = "Auth Controller", description = "APIs for authentication and user management")
 @RestController
@@ -30,11 +60,33 @@ import java.util.UUID;
         allowCredentials = "true")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserChangeFeed userChangeFeed;
+    private final SessionTokenService sessionTokens;
+    private final ServiceToken serviceToken;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String SERVICE_ONLY = "Only backend services can use this endpoint";
+
+    @Value("${auth.batch.max-size:500}")
+    private int batchMaxSize;
 
     @Autowired
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService, UserImportService userImportService,
+                          UserChangeFeed userChangeFeed, SessionTokenService sessionTokens,
+                          ServiceToken serviceToken, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.userChangeFeed = userChangeFeed;
+        this.sessionTokens = sessionTokens;
+        this.serviceToken = serviceToken;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
     }
     //option request format
     @RequestMapping(method = RequestMethod.OPTIONS)
@@ -44,136 +96,50 @@ public class AuthController {
     // EXISTING LOGIN ENDPOINT
     @Operation(summary = "User login", description = "Authenticates a user with email and password")
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials,
-                                   HttpSession session) {
-        try {
-            String email = credentials.get("email");
-            String password = credentials.get("password");
-
-            if (email == null || password == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "Email and password are required"));
-            }
-
-            Optional<User> userOpt = userService.findByEmail(email);
-
-            if (userOpt.isEmpty() || !userService.verifyPassword(userOpt.get(), password)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Map.of("error", "Invalid credentials"));
-            }
-
-            User user = userOpt.get();
-
-            // Store user ID in session
-            session.setAttribute("userId", user.getId());
-
-            // If role is not assigned, return indication to redirect to role selection
-            if (!user.isRoleAssigned()) {
-                return ResponseEntity.ok(Map.of(
-                        "userId", user.getId(),
-                        "email", user.getEmail(),
-                        "fullName", user.getFullName(),
-                        "needsRoleAssignment", true
-                ));
-            }
-
-            // Normal successful login
-            return ResponseEntity.ok(Map.of(
-                    "userId", user.getId(),
-                    "email", user.getEmail(),
-                    "fullName", user.getFullName(),
-                    "role", user.getRole()
-            ));
-
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error during authentication: " + e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest credentials,
+                                                      HttpServletRequest request) {
+        HttpSession session = sessionFor(request);
+        return userService.authenticateAsync(credentials.email(), credentials.password())
+                .<ResponseEntity<?>>thenApply(userOpt -> {
+                    if (userOpt.isEmpty()) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(Map.of("error", "Invalid credentials"));
+                    }
+
+                    // Without a role the body tells the client to redirect to role selection
+                    User user = userOpt.get();
+                    return signedIn(session, user, AuthResponse.signedIn(user));
+                })
+                .exceptionally(e -> error("Error during authentication", e))
+                .thenApply(response -> countLogin("password", response));
     }
 
     //GOOGLE LOGIN ENDPOINT
     @Operation(summary = "Google login", description = "Authenticates a user with Google credentials")
     @PostMapping("/google/login")
-    public ResponseEntity<?> googleLogin(@RequestBody Map<String, String> data, HttpSession session) {
-        try {
-            String googleId = data.get("googleId");
-            String email = data.get("email");
-            String fullName = data.get("fullName");
-
-            if (googleId == null || email == null || fullName == null) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "Missing required fields: googleId, email, or fullName"));
-            }
-
-            // Find or create user
-            User user = userService.findOrCreateGoogleUser(googleId, email, fullName);
-
-            // Store user ID in session
-            session.setAttribute("userId", user.getId());
-
-            // Return user data
-            if (!user.isRoleAssigned()) {
-                return ResponseEntity.ok(Map.of(
-                        "userId", user.getId(),
-                        "email", user.getEmail(),
-                        "fullName", user.getFullName(),
-                        "roleAssigned", false,
-                        "needsRoleAssignment", true
-                ));
-            } else {
-                return ResponseEntity.ok(Map.of(
-                        "userId", user.getId(),
-                        "email", user.getEmail(),
-                        "fullName", user.getFullName(),
-                        "role", user.getRole(),
-                        "roleAssigned", true
-                ));
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error during Google authentication: " + e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> googleLogin(@Valid @RequestBody GoogleLoginRequest data,
+                                                            HttpServletRequest request) {
+        // Find or create user
+        HttpSession session = sessionFor(request);
+        return userService.findOrCreateGoogleUserAsync(data.googleId(), data.email(), data.fullName())
+                .<ResponseEntity<?>>thenApply(user -> signedIn(session, user, AuthResponse.googleSignedIn(user)))
+                .exceptionally(e -> error("Error during Google authentication", e))
+                .thenApply(response -> countLogin("google", response));
     }
 
     @Operation(summary = "User registration", description = "Registers a new user with email, password, and full name")
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> userData) {
-        try {
-            String email = userData.get("email");
-            String password = userData.get("password");
-            String fullName = userData.get("fullName");
-
-            if (email == null || password == null || fullName == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "Email, password and fullName are required"));
-            }
-
-            Optional<User> existingUser = userService.findByEmail(email);
-
-            if (existingUser.isPresent()) {
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                        .body(Map.of("error", "Email already registered"));
-            }
-
-            User user = userService.registerUser(email, password, fullName);
-
-            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                    "userId", user.getId(),
-                    "email", user.getEmail(),
-                    "fullName", user.getFullName(),
-                    "needsRoleAssignment", true
-            ));
-
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error during registration: " + e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest userData) {
+        return userService.registerUserAsync(userData.email(), userData.password(), userData.fullName())
+                .<ResponseEntity<?>>thenApply(user -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(AuthResponse.registered(user)))
+                .exceptionally(e -> error("Error during registration", e));
     }
 
     @Operation(summary = "Get role selection info", description = "Returns information for role selection")
     @GetMapping("/role")
-    public ResponseEntity<?> roleSelectionPage(HttpSession session) {
-        String userId = (String) session.getAttribute("userId");
+    public ResponseEntity<?> roleSelectionPage(HttpServletRequest request) {
+        String userId = currentUserId(request);
 
         if (userId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -185,42 +151,25 @@ public class AuthController {
 
     @Operation(summary = "Assign role to user", description = "Assigns a role to the user and optionally sets a student ID for students")
     @PostMapping("/role")
-    public ResponseEntity<?> assignRole(@RequestBody Map<String, String> roleData) {
-        try {
-            String userId = roleData.get("userId");
-            String role = roleData.get("role");
-            String studentId = roleData.get("studentId");
-
-            if (userId == null || role == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "UserId and role are required"));
-            }
-
-            // Normalize role string to handle different formats
-            role = role.toLowerCase();
-            if (!"student".equals(role) && !"professor".equals(role)) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "Role must be either 'student' or 'professor'"));
-            }
-
-            // If role is student and no studentId is provided, generate one
-            if ("student".equals(role) && (studentId == null || studentId.isEmpty())) {
-                studentId = "STUDENT-" + UUID.randomUUID().toString().substring(0, 8);
-            }
-
-            User user = userService.assignRole(userId, role, studentId);
-
-            return ResponseEntity.ok(Map.of(
-                    "userId", user.getId(),
-                    "email", user.getEmail(),
-                    "fullName", user.getFullName(),
-                    "role", user.getRole()
-            ));
-        } catch (Exception e) {
-            e.printStackTrace(); // Add this for debugging
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error assigning role: " + e.getMessage()));
+    public CompletableFuture<ResponseEntity<?>> assignRole(@Valid @RequestBody RoleRequest roleData,
+                                                           HttpServletRequest request) {
+        String userId = roleData.userId();
+        // Normalize role string to handle different formats
+        String role = roleData.role().toLowerCase();
+        String studentId = roleData.studentId();
+
+        // If role is student and no studentId is provided, generate one
+        if ("student".equals(role) && (studentId == null || studentId.isEmpty())) {
+            studentId = "STUDENT-" + UUID.randomUUID().toString().substring(0, 8);
         }
+
+        // A token carries the role, so reissue it when users pick a role for themselves
+        boolean refreshToken = sessionTokens.isTokenMode() && userId.equals(currentUserId(request));
+        return userService.assignRoleAsync(userId, role, studentId)
+                .<ResponseEntity<?>>thenApply(user -> refreshToken ?
+                        signedIn(null, user, AuthResponse.roleAssigned(user)) :
+                        ResponseEntity.ok(AuthResponse.roleAssigned(user)))
+                .exceptionally(e -> error("Error assigning role", e));
     }
 
     // EXISTING LOGOUT ENDPOINT
@@ -237,41 +186,200 @@ public class AuthController {
         SecurityContextLogoutHandler logoutHandler = new SecurityContextLogoutHandler();
         logoutHandler.logout(request, response, SecurityContextHolder.getContext().getAuthentication());
 
-        return ResponseEntity.ok(Map.of("message", "Successfully logged out"));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, sessionTokens.clearCookie().toString())
+                .body(Map.of("message", "Successfully logged out"));
     }
 
     // EXISTING STATUS ENDPOINT
     @Operation(summary = "Check authentication status", description = "Checks if the user is currently authenticated")
     @GetMapping("/status")
-    public ResponseEntity<?> authStatus(HttpSession session) {
-        String userId = (String) session.getAttribute("userId");
+    public CompletableFuture<ResponseEntity<?>> authStatus(HttpServletRequest request) {
+        String userId = currentUserId(request);
 
         if (userId == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("authenticated", false));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(StatusResponse.NOT_AUTHENTICATED));
         }
 
-        try {
-            Optional<User> userOpt = userService.findById(userId);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                return ResponseEntity.ok(Map.of(
-                        "authenticated", true,
-                        "userId", user.getId(),
-                        "email", user.getEmail(),
-                        "fullName", user.getFullName(),
-                        "role", user.getRole(),
-                        "roleAssigned", user.isRoleAssigned()
-                ));
-            } else {
-                // Invalid user ID in session
-                session.invalidate();
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Map.of("authenticated", false, "error", "Invalid user session"));
+        // Served from the user cache when it holds the user; a poll whose status has not changed is
+        // answered 304 without serializing the body again
+        List<String> ifNoneMatch = new ServletServerHttpRequest(request).getHeaders().getIfNoneMatch();
+        return userService.findProfileByIdAsync(userId)
+                .<ResponseEntity<?>>thenApply(userOpt -> {
+                    if (userOpt.isPresent()) {
+                        StatusResponse status = StatusResponse.of(userOpt.get());
+                        String etag = status.etag();
+                        boolean notModified = ifNoneMatch.contains(etag) || ifNoneMatch.contains("W/" + etag)
+                                || ifNoneMatch.contains("*");
+                        // Browsers may keep the status but must revalidate it, per user
+                        ResponseEntity.BodyBuilder response = ResponseEntity
+                                .status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                                .eTag(etag)
+                                .cacheControl(CacheControl.noCache().cachePrivate())
+                                .varyBy(HttpHeaders.COOKIE, HttpHeaders.AUTHORIZATION);
+                        return notModified ? response.build() : response.body(status);
+                    } else {
+                        // Invalid user ID in session
+                        HttpSession session = request.getSession(false);
+                        if (session != null) {
+                            session.invalidate();
+                        }
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .header(HttpHeaders.SET_COOKIE, sessionTokens.clearCookie().toString())
+                                .body(StatusResponse.INVALID_SESSION);
+                    }
+                })
+                .exceptionally(e -> error("Error checking authentication status", e));
+    }
+
+    @Operation(summary = "Batch user lookup", description = "Resolves many users by id and/or email in one call (backend services only)")
+    @PostMapping("/users:batchGet")
+    public CompletableFuture<ResponseEntity<?>> batchGetUsers(@Valid @RequestBody BatchGetRequest lookup,
+                                                              HttpServletRequest request) {
+        List<String> ids = lookup.ids();
+        List<String> emails = lookup.emails();
+
+        if (!isServiceCall(request)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", SERVICE_ONLY)));
+        }
+        if (ids.size() + emails.size() > batchMaxSize) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "At most " + batchMaxSize + " ids and emails per request")));
+        }
+
+        CompletableFuture<Map<String, User>> byId = userService.findProfilesByIdsAsync(ids);
+        CompletableFuture<Map<String, User>> byEmail = userService.findProfilesByEmailsAsync(emails);
+        return byId.<Map<String, User>, ResponseEntity<?>>thenCombine(byEmail, (usersById, usersByEmail) -> {
+                    // The same user may be requested by id and by email
+                    Map<String, User> users = new LinkedHashMap<>();
+                    usersById.values().forEach(user -> users.put(user.getId(), user));
+                    usersByEmail.values().forEach(user -> users.put(user.getId(), user));
+
+                    return ResponseEntity.ok(Map.of(
+                            "users", users.values().stream().map(this::profile).toList(),
+                            "notFound", Map.of(
+                                    "ids", ids.stream().filter(id -> !usersById.containsKey(id)).distinct().toList(),
+                                    "emails", emails.stream().filter(email -> !usersByEmail.containsKey(email)).distinct().toList()
+                            )
+                    ));
+                })
+                .exceptionally(e -> error("Error looking up users", e));
+    }
+
+    @Operation(summary = "Bulk user import", description = "Provisions users from a CSV or NDJSON roster and streams one NDJSON result per row (backend services only)")
+    @PostMapping(value = "/users:import", consumes = {"text/csv", NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) throws IOException {
+        if (!isServiceCall(request)) {
+            return streamedError(HttpStatus.FORBIDDEN, SERVICE_ONLY);
+        }
+
+        boolean ndjson = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(NDJSON_VALUE));
+        // The roster is read while the results are written, never buffered whole
+        InputStream roster = request.getInputStream();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(out -> userImportService.importUsers(roster, ndjson, out));
+    }
+
+    @Operation(summary = "Watch user changes", description = "Streams user changes as server-sent events, resumable with Last-Event-ID (backend services only)")
+    @GetMapping("/users:watch")
+    public CompletableFuture<Object> watchUsers(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            HttpServletRequest request) {
+        if (!isServiceCall(request)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", SERVICE_ONLY)));
+        }
+        return CompletableFuture.completedFuture(changeStream(lastEventId));
+    }
+
+    // The emitter is returned bare: MVC only streams an async result whose own type is an emitter
+    private Object changeStream(String lastEventId) {
+        SseEmitter emitter = userChangeFeed.subscribe(lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", "Too many user change subscribers"));
+        }
+        return emitter;
+    }
+
+    // Bulk reads and writes span every user. Anyone can pick the professor role at sign-up, so a role
+    // is no gate for them: only backend services holding the service token are let through
+    private boolean isServiceCall(HttpServletRequest request) {
+        return serviceToken.matches(request);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamedError(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Map.of("error", message)));
+    }
+
+    // Public view of a user; role and studentId may be null, which Map.of does not allow
+    private Map<String, Object> profile(User user) {
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("userId", user.getId());
+        profile.put("email", user.getEmail());
+        profile.put("fullName", user.getFullName());
+        profile.put("role", user.getRole());
+        profile.put("roleAssigned", user.isRoleAssigned());
+        profile.put("studentId", user.getStudentId());
+        return profile;
+    }
+
+    // Session mode keeps the user id in the HttpSession; token mode needs no server-side state
+    private HttpSession sessionFor(HttpServletRequest request) {
+        return sessionTokens.isTokenMode() ? null : request.getSession();
+    }
+
+    private ResponseEntity<?> signedIn(HttpSession session, User user, AuthResponse body) {
+        if (session != null) {
+            // Store user ID in session
+            session.setAttribute("userId", user.getId());
+            return ResponseEntity.ok(body);
+        }
+
+        String token = sessionTokens.issue(user);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, sessionTokens.cookie(token).toString())
+                .body(body.withToken(token));
+    }
+
+    private String currentUserId(HttpServletRequest request) {
+        return sessionTokens.currentUserId(request);
+    }
+
+    private ResponseEntity<?> error(String message, Throwable e) {
+        // Async stages wrap the original failure
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        // Transactions may wrap the exception thrown from the transaction body
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof DuplicateUserException duplicate) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", duplicate.getMessage()));
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error checking authentication status: " + e.getMessage()));
         }
+        if (cause instanceof PasswordHasherBusyException busy) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfter().toSeconds()))
+                    .body(Map.of("error", busy.getMessage()));
+        }
+        // Details go to the log (with the trace id), never to the client
+        log.error(message, cause);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", message));
+    }
+
+    // auth.login.attempts{method, outcome}: success, rejected (bad credentials), busy (hashing pool full) or error
+    private ResponseEntity<?> countLogin(String method, ResponseEntity<?> response) {
+        int status = response.getStatusCode().value();
+        String outcome = status < 300 ? "success" :
+                status == HttpStatus.UNAUTHORIZED.value() ? "rejected" :
+                status == HttpStatus.SERVICE_UNAVAILABLE.value() ? "busy" : "error";
+        meterRegistry.counter("auth.login.attempts", "method", method, "outcome", outcome).increment();
+        return response;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.example.Authserver.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+// Request bodies that fail their DTO constraints keep the {"error": ...} shape of every other failure,
+// for every controller
+@RestControllerAdvice
+public class RequestErrorHandler {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<?> invalidRequest(MethodArgumentNotValidException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getBindingResult().getAllErrors().get(0).getDefaultMessage()));
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<?> unreadableRequest(HttpMessageNotReadableException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Malformed JSON request body"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.Authserver.dto;
+
+import com.example.Authserver.entity.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Body of login, Google login, registration and role assignment; absent fields are left out,
+// so each endpoint keeps the exact shape it had when the bodies were built with Map.of
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AuthResponse(String userId, String email, String fullName, String role,
+                           Boolean roleAssigned, Boolean needsRoleAssignment, String token) {
+
+    // Password login: the role, or a hint to send the user to role selection
+    public static AuthResponse signedIn(User user) {
+        return user.isRoleAssigned() ?
+                new AuthResponse(user.getId(), user.getEmail(), user.getFullName(), user.getRole(), null, null, null) :
+                registered(user);
+    }
+
+    // Google login also reports roleAssigned either way
+    public static AuthResponse googleSignedIn(User user) {
+        return user.isRoleAssigned() ?
+                new AuthResponse(user.getId(), user.getEmail(), user.getFullName(), user.getRole(), true, null, null) :
+                new AuthResponse(user.getId(), user.getEmail(), user.getFullName(), null, false, true, null);
+    }
+
+    public static AuthResponse registered(User user) {
+        return new AuthResponse(user.getId(), user.getEmail(), user.getFullName(), null, null, true, null);
+    }
+
+    public static AuthResponse roleAssigned(User user) {
+        return new AuthResponse(user.getId(), user.getEmail(), user.getFullName(), user.getRole(), null, null, null);
+    }
+
+    public AuthResponse withToken(String token) {
+        return new AuthResponse(userId, email, fullName, role, roleAssigned, needsRoleAssignment, token);
+    }
+}
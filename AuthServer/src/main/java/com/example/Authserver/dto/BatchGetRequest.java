@@ -0,0 +1,16 @@
+package com.example.Authserver.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+public record BatchGetRequest(
+        List<@NotBlank(message = "Ids and emails must not be blank") String> ids,
+        List<@NotBlank(message = "Ids and emails must not be blank") String> emails) {
+
+    // Either list may be left out or sent as null
+    public BatchGetRequest {
+        ids = ids == null ? List.of() : ids;
+        emails = emails == null ? List.of() : emails;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.Authserver.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record CheckInRequest(
+        @NotBlank(message = "An attendance code is required") String code) {
+}
@@ -0,0 +1,9 @@
+package com.example.Authserver.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record GoogleLoginRequest(
+        @NotBlank(message = "Missing required fields: googleId, email, or fullName") String googleId,
+        @NotBlank(message = "Missing required fields: googleId, email, or fullName") String email,
+        @NotBlank(message = "Missing required fields: googleId, email, or fullName") String fullName) {
+}
@@ -0,0 +1,8 @@
+package com.example.Authserver.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record LoginRequest(
+        @NotBlank(message = "Email and password are required") String email,
+        @NotBlank(message = "Email and password are required") String password) {
+}
@@ -0,0 +1,11 @@
+package com.example.Authserver.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+public record RegisterRequest(
+        @NotBlank(message = "Email, password and fullName are required")
+        @Email(message = "A valid email is required") String email,
+        @NotBlank(message = "Email, password and fullName are required") String password,
+        @NotBlank(message = "Email, password and fullName are required") String fullName) {
+}
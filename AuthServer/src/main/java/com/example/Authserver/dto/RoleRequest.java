@@ -0,0 +1,12 @@
+package com.example.Authserver.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+// The role is matched case-insensitively; studentId is generated for students who leave it out
+public record RoleRequest(
+        @NotBlank(message = "UserId and role are required") String userId,
+        @NotBlank(message = "UserId and role are required")
+        @Pattern(regexp = "(?i)student|professor", message = "Role must be either 'student' or 'professor'") String role,
+        String studentId) {
+}
@@ -0,0 +1,40 @@
+package com.example.Authserver.dto;
+
+import com.example.Authserver.entity.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Objects;
+
+// Body of /status; a user who has not picked a role yet has no role field
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StatusResponse(boolean authenticated, String userId, String email, String fullName,
+                             String role, Boolean roleAssigned, String error) {
+
+    public static final StatusResponse NOT_AUTHENTICATED = new StatusResponse(false, null, null, null, null, null, null);
+    public static final StatusResponse INVALID_SESSION =
+            new StatusResponse(false, null, null, null, null, null, "Invalid user session");
+
+    public static StatusResponse of(User user) {
+        return new StatusResponse(true, user.getId(), user.getEmail(), user.getFullName(),
+                user.getRole(), user.isRoleAssigned(), null);
+    }
+
+    // A hash of the body, so the same status gets the same ETag on every instance
+    @JsonIgnore
+    public String etag() {
+        String content = String.join("\u0000", String.valueOf(authenticated), Objects.toString(userId, ""),
+                Objects.toString(email, ""), Objects.toString(fullName, ""), Objects.toString(role, ""),
+                String.valueOf(roleAssigned), Objects.toString(error, ""));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.Authserver.dto;
+
+import com.example.Authserver.entity.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Data of a "user" event on /users:watch: the user's auth state after the change, or removed
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserChangeEvent(String userId, Boolean removed, String email, String fullName, String role,
+                              Boolean roleAssigned, Boolean disabled, String studentId) {
+
+    public static UserChangeEvent of(User user) {
+        return new UserChangeEvent(user.getId(), null, user.getEmail(), user.getFullName(), user.getRole(),
+                user.isRoleAssigned(), user.isDisabled(), user.getStudentId());
+    }
+
+    public static UserChangeEvent removed(String userId) {
+        return new UserChangeEvent(userId, true, null, null, null, null, null, null);
+    }
+}
@@ -1,15 +1,30 @@
 package com.example.Authserver.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "ux_users_email_key", columnList = "email_key", unique = true),
+        @Index(name = "ux_users_google_id", columnList = "googleId", unique = true),
+        @Index(name = "ix_users_updated_at", columnList = "updated_at")
+})
 public class User {
     @Id
     private String id;
     private String email;
+    // Lowercased email for the JPA unique index; no accessors, so Firestore and JSON never see it
+    @Column(name = "email_key")
+    private String emailKey;
     private String fullName;
     private String role; // "student" or "professor"
     private String googleId; // Used for Google OAuth users
@@ -17,6 +32,9 @@ public class User {
     private String studentId; // Only for students
     private boolean roleAssigned; // Whether the user has selected a role
     private boolean disabled;
+    // Time of the last JPA write, which the JPA store polls for changes; no accessors either
+    @Column(name = "updated_at")
+    private Instant updatedAt;
 
     // Default constructor
     public User() {
@@ -36,6 +54,27 @@ public class User {
         this.disabled = disabled;
     }
 
+    // Copy constructor
+    public User(User other) {
+        this(other.id, other.email, other.fullName, other.role, other.googleId,
+                other.password, other.studentId, other.roleAssigned, other.disabled);
+    }
+
+    // Copy for callers that only show or authorize the user
+    public User withoutPassword() {
+        User copy = new User(this);
+        copy.password = null;
+        return copy;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateDerivedColumns() {
+        emailKey = email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+        // Databases keep microseconds at most
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     // Static method to get a builder
     public static UserBuilder builder() {
         return new UserBuilder();
@@ -0,0 +1,225 @@
+package com.example.Authserver.events;
+
+import com.example.Authserver.dto.UserChangeEvent;
+import com.example.Authserver.repository.UserChange;
+import com.example.Authserver.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Streams user changes to downstream caches over server-sent events. Every change gets the next
+// sequence number, and only each user's latest change is kept, so a user updated several times
+// between two deliveries reaches subscribers once, in its final state. Subscribers resume from the
+// Last-Event-ID they saw ("<instance>-<sequence>"). When that is impossible (another instance, changes
+// dropped from the retained history, or missed store notifications) they get a "reset" event and must
+// drop their copy. Events are delivered every coalesce-window by one thread, which suits a handful of
+// downstream services rather than browsers
+@Component
+public class UserChangeFeed {
+
+    // Distinguishes this instance's sequence numbers from another's (or from before a restart)
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Object lock = new Object();
+    private long sequence;
+    // Changes up to and including floor are no longer retained
+    private long floor;
+    private final NavigableMap<Long, UserChangeEvent> bySequence = new TreeMap<>();
+    private final Map<String, Long> sequenceByUser = new HashMap<>();
+
+    private final int maxRetained;
+    private final int maxSubscribers;
+    private final Duration streamTimeout;
+    private final Duration heartbeat;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("user-changes-"));
+
+    private final Counter published;
+
+    @Autowired
+    public UserChangeFeed(UserRepository userRepository, MeterRegistry meterRegistry,
+                          @Value("${user.changes.max-retained:10000}") int maxRetained,
+                          @Value("${user.changes.max-subscribers:50}") int maxSubscribers,
+                          @Value("${user.changes.coalesce-window:250ms}") Duration coalesceWindow,
+                          @Value("${user.changes.heartbeat:15s}") Duration heartbeat,
+                          @Value("${user.changes.stream-timeout:30m}") Duration streamTimeout) {
+        this.maxRetained = maxRetained;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeat = heartbeat;
+        this.streamTimeout = streamTimeout;
+        this.published = meterRegistry.counter("user.changes.published");
+        Gauge.builder("user.changes.subscribers", subscribers, List::size).register(meterRegistry);
+
+        userRepository.watchChanges(this::publish, this::reset);
+        scheduler.scheduleWithFixedDelay(this::deliver, coalesceWindow.toMillis(), coalesceWindow.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    void publish(UserChange change) {
+        UserChangeEvent event = change.user() == null ?
+                UserChangeEvent.removed(change.id()) : UserChangeEvent.of(change.user());
+        synchronized (lock) {
+            Long previous = sequenceByUser.get(change.id());
+            if (previous != null) {
+                // The store's listener repeats this instance's own writes
+                if (bySequence.get(previous).equals(event)) {
+                    return;
+                }
+                bySequence.remove(previous);
+            }
+            sequence++;
+            bySequence.put(sequence, event);
+            sequenceByUser.put(change.id(), sequence);
+            if (bySequence.size() > maxRetained) {
+                Map.Entry<Long, UserChangeEvent> eldest = bySequence.pollFirstEntry();
+                sequenceByUser.remove(eldest.getValue().userId());
+                floor = eldest.getKey();
+            }
+        }
+        published.increment();
+    }
+
+    // Changes may have been missed, so no subscriber's copy can be trusted any more
+    void reset() {
+        synchronized (lock) {
+            sequence++;
+            floor = sequence;
+            bySequence.clear();
+            sequenceByUser.clear();
+        }
+    }
+
+    // Null when the subscriber limit is reached
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        subscribe(lastEventId, emitter);
+        return emitter;
+    }
+
+    void subscribe(String lastEventId, SseEmitter emitter) {
+        long cursor;
+        synchronized (lock) {
+            // A new subscriber has nothing to catch up on
+            cursor = lastEventId == null ? sequence : resumeFrom(lastEventId);
+        }
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // Catch up straight away rather than on the next delivery
+        scheduler.execute(() -> deliver(subscriber));
+    }
+
+    // -1 makes the next delivery a reset
+    private long resumeFrom(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !instance.equals(lastEventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            long cursor = Long.parseLong(lastEventId.substring(separator + 1));
+            return cursor <= sequence ? cursor : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Runs one delivery on the delivery thread and waits for it
+    void deliverNow() throws Exception {
+        scheduler.submit((Runnable) this::deliver).get();
+    }
+
+    private void deliver() {
+        for (Subscriber subscriber : subscribers) {
+            deliver(subscriber);
+        }
+    }
+
+    private void deliver(Subscriber subscriber) {
+        boolean reset;
+        long current;
+        List<Map.Entry<Long, UserChangeEvent>> events = new ArrayList<>();
+        synchronized (lock) {
+            current = sequence;
+            reset = subscriber.cursor < floor;
+            if (!reset && subscriber.cursor < sequence) {
+                // Copied: TreeMap reuses its entries when others are removed
+                bySequence.tailMap(subscriber.cursor, false).forEach((seq, event) -> events.add(Map.entry(seq, event)));
+            }
+        }
+
+        try {
+            if (reset) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(instance + "-" + current)
+                        .name("reset")
+                        .data(Map.of("reason", "Changes since the last event are not available"), MediaType.APPLICATION_JSON));
+                subscriber.cursor = current;
+                subscriber.lastSent = System.nanoTime();
+            } else if (!events.isEmpty()) {
+                for (Map.Entry<Long, UserChangeEvent> event : events) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(instance + "-" + event.getKey())
+                            .name("user")
+                            .data(event.getValue(), MediaType.APPLICATION_JSON));
+                }
+                subscriber.cursor = events.get(events.size() - 1).getKey();
+                subscriber.lastSent = System.nanoTime();
+            } else if (!subscriber.opened || System.nanoTime() - subscriber.lastSent >= heartbeat.toNanos()) {
+                // Sends the response headers straight away, and keeps idle connections open through
+                // proxies and load balancers
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                subscriber.lastSent = System.nanoTime();
+            }
+            subscriber.opened = true;
+        } catch (IOException | IllegalStateException e) {
+            // Disconnected; the client reconnects with its Last-Event-ID
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // Only touched by the delivery thread
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private long cursor;
+        private long lastSent;
+        private boolean opened;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
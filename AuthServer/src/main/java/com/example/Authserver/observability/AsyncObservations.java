@@ -0,0 +1,57 @@
+package com.example.Authserver.observability;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Observations (a timer plus, with tracing, a span) around calls that return a CompletableFuture
+public final class AsyncObservations {
+
+    private AsyncObservations() {
+    }
+
+    // Starts the observation as a child of the current one and keeps it open until the future completes.
+    // The returned future completes inside the caller's observation, so stages the caller chains onto it
+    // (often run on a Firestore or hashing thread) are still attributed to the request that started them
+    public static <T> CompletableFuture<T> observe(ObservationRegistry registry, Observation observation,
+                                                   Supplier<CompletableFuture<T>> call) {
+        Observation parent = registry.getCurrentObservation();
+        observation.start();
+        CompletableFuture<T> future;
+        try (Observation.Scope scope = observation.openScope()) {
+            future = call.get();
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> resumed = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                observation.error(error instanceof CompletionException && error.getCause() != null ?
+                        error.getCause() : error);
+            }
+            observation.stop();
+            if (parent == null) {
+                complete(resumed, value, error);
+                return;
+            }
+            try (Observation.Scope scope = parent.openScope()) {
+                complete(resumed, value, error);
+            }
+        });
+        return resumed;
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, T value, Throwable error) {
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(value);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.Authserver.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Times the first request after a cold start. Boot reports application.ready.time; with lazy
+// initialization (the fast-start profile) much of the startup work moves into the first request,
+// so its latency is reported next to it as application.first.request.time. Runs ahead of every other
+// filter so the lazily built security filter chain is counted too
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupTimings extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimings.class);
+
+    private final AtomicBoolean firstSeen = new AtomicBoolean();
+    private final AtomicLong firstRequestNanos = new AtomicLong(-1);
+
+    @Autowired
+    public StartupTimings(MeterRegistry meterRegistry) {
+        TimeGauge.builder("application.first.request.time", firstRequestNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+                .description("Time taken to answer the first request after startup")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (firstSeen.get() || !firstSeen.compareAndSet(false, true)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        String name = request.getMethod() + " " + request.getRequestURI();
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            report(name, start, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            throw e;
+        }
+        if (!request.isAsyncStarted()) {
+            report(name, start, response.getStatus());
+            return;
+        }
+        // Async handlers (most of AuthController) answer after the filter chain returns
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                report(name, start, response.getStatus());
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    private void report(String name, long start, int status) {
+        long elapsed = System.nanoTime() - start;
+        firstRequestNanos.set(elapsed);
+        log.info("First request {} answered {} in {} ms ({} ms after JVM start)", name, status,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
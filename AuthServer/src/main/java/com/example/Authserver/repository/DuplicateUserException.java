@@ -0,0 +1,9 @@
+package com.example.Authserver.repository;
+
+// Thrown when an email or Google account is already claimed by another user
+public class DuplicateUserException extends RuntimeException {
+
+    public DuplicateUserException(String message) {
+        super(message);
+    }
+}
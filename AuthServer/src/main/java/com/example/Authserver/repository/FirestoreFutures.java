@@ -0,0 +1,55 @@
+package com.example.Authserver.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.firestore.FirestoreException;
+import io.grpc.Status;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public final class FirestoreFutures {
+
+    private FirestoreFutures() {
+    }
+
+    // Bridges a Firestore ApiFuture to a CompletableFuture without parking a thread on get()
+    static <T> CompletableFuture<T> toCompletableFuture(ApiFuture<T> apiFuture, Executor callbackExecutor) {
+        CompletableFuture<T> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                apiFuture.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, callbackExecutor);
+
+        return result;
+    }
+
+    // The gRPC status of a failed call, whichever exception carries it; null if none does
+    public static Status.Code statusCode(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof FirestoreException firestoreError && firestoreError.getStatus() != null) {
+                return firestoreError.getStatus().getCode();
+            }
+            if (t instanceof ApiException apiError) {
+                return Status.Code.valueOf(apiError.getStatusCode().getCode().name());
+            }
+        }
+        return null;
+    }
+}
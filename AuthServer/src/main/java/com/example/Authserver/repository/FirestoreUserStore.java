@@ -0,0 +1,460 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Filter;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+// Users live in the "users" collection; users_by_email / users_by_google hold {userId} pointer
+// documents that turn email/googleId lookups into key gets and make uniqueness transactional
+@Component
+@ConditionalOnProperty(name = "user.store.type", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreUserStore implements UserStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FirestoreUserStore.class);
+
+    // Firestore limit on values in a single "in" filter
+    private static final int MAX_IN_QUERY_VALUES = 30;
+
+    // Set to the commit time by every write to a user, for the change listener
+    private static final String UPDATED_AT = "updatedAt";
+    // How far before its start the change listener looks, for clock skew against the commit times
+    private static final Duration CHANGE_LISTENER_LOOKBACK = Duration.ofMinutes(1);
+
+    private final Firestore firestore;
+    private final CollectionReference usersCollection;
+    private final CollectionReference emailIndex;
+    private final CollectionReference googleIdIndex;
+    private final UserWriteBatcher writeBatcher;
+    private final Executor callbackExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${user.batch.chunk-size:100}")
+    private int batchChunkSize;
+
+    // Until the index backfill has run, users without pointer documents are still found by query
+    @Value("${user.index.query-fallback:true}")
+    private boolean queryFallback;
+
+    @Autowired
+    public FirestoreUserStore(Firestore firestore, UserWriteBatcher writeBatcher, Environment environment,
+                              MeterRegistry meterRegistry) {
+        this.firestore = firestore;
+        this.usersCollection = firestore.collection("users");
+        this.emailIndex = firestore.collection("users_by_email");
+        this.googleIdIndex = firestore.collection("users_by_google");
+        this.writeBatcher = writeBatcher;
+        // On virtual threads, blocking continuations can no longer pin gRPC threads; otherwise completing
+        // the future is cheap enough to run on the thread that delivered the result
+        this.callbackExecutor = Threading.VIRTUAL.isActive(environment) ?
+                new VirtualThreadTaskExecutor("firestore-callback-") :
+                MoreExecutors.directExecutor();
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Listens to users written since this listener started, not to the whole collection, which
+    // would read (and bill) every user on each cold start and each listener reset. A user enters the
+    // result when written (ADDED) and changes from there on (MODIFIED); users are only ever deleted
+    // by hand, and only those written since the start are reported as REMOVED
+    @Override
+    public AutoCloseable watchChanges(Consumer<UserChange> changed, Runnable lost) {
+        Instant since = Instant.now().minus(CHANGE_LISTENER_LOOKBACK);
+        Query recentlyWritten = usersCollection.whereGreaterThan(UPDATED_AT,
+                Timestamp.ofTimeSecondsAndNanos(since.getEpochSecond(), since.getNano()));
+        ListenerRegistration registration = recentlyWritten.addSnapshotListener((snapshots, error) -> {
+            if (error != null) {
+                log.warn("User change listener failed", error);
+                lost.run();
+                return;
+            }
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                QueryDocumentSnapshot doc = change.getDocument();
+                changed.accept(new UserChange(doc.getId(),
+                        change.getType() == DocumentChange.Type.REMOVED ? null : UserCodec.decode(doc)));
+            }
+        });
+        return registration::remove;
+    }
+
+    // The pointers are rewritten atomically with the user; saves are batched with other writes in
+    // the same short window
+    @Override
+    public CompletableFuture<Void> save(User user) {
+        return writeBatcher.enqueue(user.getId(), batch -> {
+            batch.set(usersCollection.document(user.getId()), stamped(user));
+            writePointers(batch, user);
+        });
+    }
+
+    // The pointers are created, not set, so the commit fails if one is already taken: uniqueness in a
+    // single round trip, without a transaction. Users from before the pointers have none; until the
+    // backfill is done one query looks for them first
+    @Override
+    public CompletableFuture<Boolean> replacePassword(String id, String expectedHash, String newHash) {
+        DocumentReference userRef = usersCollection.document(id);
+        return async("transaction.begin", firestore.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(userRef).get();
+            roundTrip("transaction.read");
+            if (!current.exists() || !Objects.equals(expectedHash, current.getString("password"))) {
+                return false;
+            }
+            transaction.update(userRef, "password", newHash, UPDATED_AT, FieldValue.serverTimestamp());
+            roundTrip("transaction.commit");
+            return true;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<User> create(User user) {
+        DocumentReference emailRef = emailIndex.document(indexKey(UserRepository.normalizeEmail(user.getEmail())));
+        DocumentReference googleRef = user.getGoogleId() == null ? null : googleIdIndex.document(indexKey(user.getGoogleId()));
+        CompletableFuture<Optional<User>> unindexed = queryFallback ?
+                findFirst(byGoogleIdOrEmail(user.getGoogleId(), user.getEmail())) :
+                CompletableFuture.completedFuture(Optional.empty());
+
+        return unindexed.thenCompose(existing -> {
+            if (existing.isPresent()) {
+                throw duplicate(existing.get(), user.getGoogleId());
+            }
+            WriteBatch batch = firestore.batch();
+            batch.set(usersCollection.document(user.getId()), stamped(user));
+            batch.create(emailRef, pointer(user));
+            if (googleRef != null) {
+                batch.create(googleRef, pointer(user));
+            }
+            return async("commit", batch.commit());
+        }).handle((results, error) -> {
+            if (error == null) {
+                return user;
+            }
+            if (FirestoreFutures.statusCode(error) == Status.Code.ALREADY_EXISTS) {
+                throw new DuplicateUserException(googleRef == null ?
+                        "Email already registered" : "Email or Google account already registered");
+            }
+            throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+        });
+    }
+
+    // The user as UserCodec writes it, stamped for the change listener
+    private static Map<String, Object> stamped(User user) {
+        Map<String, Object> fields = UserCodec.encode(user);
+        fields.put(UPDATED_AT, FieldValue.serverTimestamp());
+        return fields;
+    }
+
+    private static DuplicateUserException duplicate(User existing, String googleId) {
+        return googleId != null && googleId.equals(existing.getGoogleId()) ?
+                new DuplicateUserException("Google account already linked to another user") :
+                new DuplicateUserException("Email already registered");
+    }
+
+    // Rosters whose emails were already checked: one atomic batch, create() fails it on a taken pointer
+    @Override
+    public CompletableFuture<Void> createAll(List<User> users) {
+        WriteBatch batch = firestore.batch();
+        for (User user : users) {
+            batch.set(usersCollection.document(user.getId()), stamped(user));
+            batch.create(emailIndex.document(indexKey(UserRepository.normalizeEmail(user.getEmail()))), pointer(user));
+            if (user.getGoogleId() != null) {
+                batch.create(googleIdIndex.document(indexKey(user.getGoogleId())), pointer(user));
+            }
+        }
+        return async("commit", batch.commit()).thenApply(results -> null);
+    }
+
+    // The user is read in the transaction and only googleId is written, so a stale copy from the caller
+    // cannot revert a concurrent change to the role or the disabled flag
+    @Override
+    public CompletableFuture<User> linkGoogleId(User user, String googleId) {
+        DocumentReference userRef = usersCollection.document(user.getId());
+        DocumentReference googleRef = googleIdIndex.document(indexKey(googleId));
+
+        return async("transaction.begin", firestore.runTransaction(transaction -> {
+            // The user and the pointer in one read; the legacy query only runs until the backfill is done
+            ApiFuture<List<DocumentSnapshot>> reads = transaction.getAll(userRef, googleRef);
+            roundTrip("transaction.read");
+            ApiFuture<QuerySnapshot> legacyGoogle = null;
+            if (queryFallback) {
+                legacyGoogle = transaction.get(usersCollection.whereEqualTo("googleId", googleId).limit(1));
+                roundTrip("transaction.read");
+            }
+
+            Map<DocumentReference, DocumentSnapshot> docs = new HashMap<>();
+            for (DocumentSnapshot doc : reads.get()) {
+                docs.put(doc.getReference(), doc);
+            }
+            if (docs.get(googleRef).exists() || legacyGoogle != null && !legacyGoogle.get().isEmpty()) {
+                throw new DuplicateUserException("Google account already linked to another user");
+            }
+            DocumentSnapshot current = docs.get(userRef);
+            if (!current.exists()) {
+                throw new RuntimeException("User not found with ID: " + user.getId());
+            }
+
+            transaction.update(userRef, "googleId", googleId, UPDATED_AT, FieldValue.serverTimestamp());
+            transaction.create(googleRef, pointer(user));
+            roundTrip("transaction.commit");
+            User linked = UserCodec.decode(current);
+            linked.setGoogleId(googleId);
+            return linked;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findById(String id) {
+        return async("get", usersCollection.document(id).get())
+                .thenApply(doc -> doc.exists() ? Optional.of(UserCodec.decode(doc)) : Optional.empty());
+    }
+
+    // Field masks keep the password hash out of the response, not just out of the result
+    @Override
+    public CompletableFuture<Optional<User>> findProfileById(String id) {
+        return async("get", usersCollection.document(id).get(UserCodec.PROFILE_MASK))
+                .thenApply(doc -> doc.exists() ? Optional.of(UserCodec.decode(doc)) : Optional.empty());
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByEmail(String email) {
+        return findByPointer(emailIndex.document(indexKey(UserRepository.normalizeEmail(email))), byGoogleIdOrEmail(null, email));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByGoogleId(String googleId) {
+        return findByPointer(googleIdIndex.document(indexKey(googleId)), usersCollection.whereEqualTo("googleId", googleId));
+    }
+
+    // One query returns the user itself, with or without pointers, where the pointers would take a
+    // getAll and then a get. An email stored in another case is missed; create() then fails on its
+    // pointer and the caller falls back to the pointer lookups
+    @Override
+    public CompletableFuture<Optional<User>> findByGoogleIdOrEmail(String googleId, String email) {
+        return async("query", byGoogleIdOrEmail(googleId, email).limit(3).get()).thenApply(snapshot -> {
+            List<User> users = snapshot.getDocuments().stream().map(UserCodec::decode).toList();
+            return users.stream()
+                    .filter(user -> googleId.equals(user.getGoogleId()))
+                    .findFirst()
+                    .or(() -> users.stream().findFirst());
+        });
+    }
+
+    // By googleId (when given) or by email, as given or normalized: users from before the pointers
+    // hold whichever form they registered with
+    private Query byGoogleIdOrEmail(String googleId, String email) {
+        List<Filter> filters = new ArrayList<>();
+        if (googleId != null) {
+            filters.add(Filter.equalTo("googleId", googleId));
+        }
+        filters.add(Filter.equalTo("email", email));
+        String normalized = UserRepository.normalizeEmail(email);
+        if (!normalized.equals(email)) {
+            filters.add(Filter.equalTo("email", normalized));
+        }
+        return filters.size() == 1 ?
+                usersCollection.where(filters.get(0)) :
+                usersCollection.where(Filter.or(filters.toArray(new Filter[0])));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsByEmail(String email) {
+        return async("get", emailIndex.document(indexKey(UserRepository.normalizeEmail(email))).get()).thenCompose(pointer -> {
+            if (pointer.exists() || !queryFallback) {
+                return CompletableFuture.completedFuture(pointer.exists());
+            }
+            return async("query", byGoogleIdOrEmail(null, email).limit(1).get()).thenApply(snapshot -> !snapshot.isEmpty());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findAllByIds(Collection<String> ids) {
+        return findAllByIds(ids, null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findProfilesByIds(Collection<String> ids) {
+        return findAllByIds(ids, UserCodec.PROFILE_MASK);
+    }
+
+    // One getAll RPC per chunk, issued in parallel; a null mask reads whole users
+    private CompletableFuture<Map<String, User>> findAllByIds(Collection<String> ids, FieldMask mask) {
+        Map<String, User> found = new ConcurrentHashMap<>();
+        List<DocumentReference> refs = new LinkedHashSet<>(ids).stream().map(usersCollection::document).toList();
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (List<DocumentReference> chunk : chunks(refs, batchChunkSize)) {
+            chunks.add(async("getAll", firestore.getAll(chunk.toArray(new DocumentReference[0]), mask))
+                    .thenAccept(docs -> {
+                        for (DocumentSnapshot doc : docs) {
+                            if (doc.exists()) {
+                                found.put(doc.getId(), UserCodec.decode(doc));
+                            }
+                        }
+                    }));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApply(done -> found);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findAllByEmails(Collection<String> emails) {
+        return findAllByEmails(emails, null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findProfilesByEmails(Collection<String> emails) {
+        return findAllByEmails(emails, UserCodec.PROFILE_MASK);
+    }
+
+    // One getAll for the pointers and one for the users per chunk
+    private CompletableFuture<Map<String, User>> findAllByEmails(Collection<String> emails, FieldMask mask) {
+        Map<String, User> found = new ConcurrentHashMap<>();
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (List<String> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(emails)), batchChunkSize)) {
+            DocumentReference[] pointerRefs = chunk.stream()
+                    .map(email -> emailIndex.document(indexKey(UserRepository.normalizeEmail(email))))
+                    .toArray(DocumentReference[]::new);
+            chunks.add(async("getAll", firestore.getAll(pointerRefs)).thenCompose(pointers -> {
+                Map<String, String> emailsByUserId = new HashMap<>();
+                List<String> unindexed = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    String userId = pointers.get(i).getString("userId");
+                    if (userId != null) {
+                        emailsByUserId.put(userId, chunk.get(i));
+                    } else {
+                        unindexed.add(chunk.get(i));
+                    }
+                }
+
+                CompletableFuture<Void> indexed = findAllByIds(emailsByUserId.keySet(), mask).thenAccept(users ->
+                        users.forEach((userId, user) -> found.put(emailsByUserId.get(userId), user)));
+                return queryFallback ?
+                        indexed.thenCombine(findAllByEmailQuery(unindexed, mask, found), (a, b) -> null) :
+                        indexed;
+            }));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApply(done -> found);
+    }
+
+    // Looks for each email as given and normalized, and files matches under the email as requested
+    private CompletableFuture<Void> findAllByEmailQuery(List<String> emails, FieldMask mask, Map<String, User> found) {
+        Map<String, List<String>> requestedByKey = new HashMap<>();
+        Set<String> values = new LinkedHashSet<>();
+        for (String email : emails) {
+            String key = UserRepository.normalizeEmail(email);
+            requestedByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(email);
+            values.add(email);
+            values.add(key);
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (List<String> chunk : chunks(new ArrayList<>(values), MAX_IN_QUERY_VALUES)) {
+            Query query = usersCollection.whereIn("email", chunk);
+            if (mask != null) {
+                query = query.select(UserCodec.PROFILE_FIELDS);
+            }
+            chunks.add(async("query", query.get())
+                    .thenAccept(snapshot -> {
+                        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                            User user = UserCodec.decode(doc);
+                            requestedByKey.getOrDefault(UserRepository.normalizeEmail(user.getEmail()), List.of())
+                                    .forEach(email -> found.putIfAbsent(email, user));
+                        }
+                    }));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]));
+    }
+
+    // Document ids cannot contain '/', so escape it (and the escape character itself)
+    static String indexKey(String value) {
+        return value.replace("%", "%25").replace("/", "%2F");
+    }
+
+    static Map<String, Object> pointer(User user) {
+        return Map.of("userId", user.getId());
+    }
+
+    private void writePointers(WriteBatch batch, User user) {
+        if (user.getEmail() != null) {
+            batch.set(emailIndex.document(indexKey(UserRepository.normalizeEmail(user.getEmail()))), pointer(user));
+        }
+        if (user.getGoogleId() != null) {
+            batch.set(googleIdIndex.document(indexKey(user.getGoogleId())), pointer(user));
+        }
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(items.subList(i, Math.min(items.size(), i + size)));
+        }
+        return chunks;
+    }
+
+    private CompletableFuture<Optional<User>> findByPointer(DocumentReference pointerRef, Query fallback) {
+        return async("get", pointerRef.get()).thenCompose(pointer -> {
+            String userId = pointer.getString("userId");
+            if (userId != null) {
+                return findById(userId);
+            }
+            return queryFallback ?
+                    findFirst(fallback) :
+                    CompletableFuture.completedFuture(Optional.empty());
+        });
+    }
+
+    private CompletableFuture<Optional<User>> findFirst(Query query) {
+        ApiFuture<QuerySnapshot> future = query.limit(1).get();
+        return async("query", future).thenApply(snapshot -> snapshot.isEmpty() ?
+                Optional.empty() :
+                Optional.of(UserCodec.decode(snapshot.getDocuments().get(0))));
+    }
+
+    private <T> CompletableFuture<T> async(String operation, ApiFuture<T> future) {
+        roundTrip(operation);
+        return FirestoreFutures.toCompletableFuture(future, callbackExecutor);
+    }
+
+    private void roundTrip(String operation) {
+        meterRegistry.counter("user.repository.round.trips", "operation", operation).increment();
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Users in a relational table (H2 by default, any Postgres-compatible database via spring.datasource).
+// Unique indexes on the lowercased email and the googleId make uniqueness transactional; blocking JDBC
+// work runs on a pool no larger than the connection pool so callers never queue inside Hikari.
+@Component
+@ConditionalOnProperty(name = "user.store.type", havingValue = "jpa")
+public class JpaUserStore implements UserStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaUserStore.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactions;
+    private final TransactionTemplate readTransactions;
+    private final Executor executor;
+
+    @Value("${user.batch.chunk-size:100}")
+    private int batchChunkSize;
+
+    @Value("${user.store.jpa.poll-interval:1s}")
+    private Duration pollInterval;
+
+    @Value("${user.store.jpa.poll-lookback:30s}")
+    private Duration pollLookback;
+
+    // Matches hibernate.jdbc.batch_size so each flush sends one JDBC batch
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int insertBatchSize;
+
+    @Autowired
+    public JpaUserStore(PlatformTransactionManager transactionManager, Environment environment,
+                        @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.readTransactions = new TransactionTemplate(transactionManager);
+        this.readTransactions.setReadOnly(true);
+        this.executor = Threading.VIRTUAL.isActive(environment) ?
+                new VirtualThreadTaskExecutor("user-jpa-") :
+                Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("user-jpa-"));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findById(String id) {
+        return read(() -> Optional.ofNullable(entityManager.find(User.class, id)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByEmail(String email) {
+        return read(() -> entityManager.createQuery("select u from User u where u.emailKey = :key", User.class)
+                .setParameter("key", UserRepository.normalizeEmail(email))
+                .getResultStream()
+                .findFirst());
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByGoogleId(String googleId) {
+        return read(() -> entityManager.createQuery("select u from User u where u.googleId = :googleId", User.class)
+                .setParameter("googleId", googleId)
+                .getResultStream()
+                .findFirst());
+    }
+
+    // One indexed query for both keys
+    @Override
+    public CompletableFuture<Optional<User>> findByGoogleIdOrEmail(String googleId, String email) {
+        return read(() -> {
+            List<User> users = entityManager.createQuery(
+                            "select u from User u where u.googleId = :googleId or u.emailKey = :key", User.class)
+                    .setParameter("googleId", googleId)
+                    .setParameter("key", UserRepository.normalizeEmail(email))
+                    .getResultList();
+            return users.stream().filter(user -> googleId.equals(user.getGoogleId())).findFirst()
+                    .or(() -> users.stream().findFirst());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsByEmail(String email) {
+        return read(() -> emailTaken(UserRepository.normalizeEmail(email)));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findAllByIds(Collection<String> ids) {
+        return read(() -> {
+            Map<String, User> found = new LinkedHashMap<>();
+            for (List<String> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(ids)), batchChunkSize)) {
+                entityManager.createQuery("select u from User u where u.id in :ids", User.class)
+                        .setParameter("ids", chunk)
+                        .getResultList()
+                        .forEach(user -> found.put(user.getId(), user));
+            }
+            return found;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findAllByEmails(Collection<String> emails) {
+        return read(() -> {
+            Map<String, List<String>> requestedByKey = new LinkedHashMap<>();
+            for (String email : new LinkedHashSet<>(emails)) {
+                requestedByKey.computeIfAbsent(UserRepository.normalizeEmail(email), key -> new ArrayList<>()).add(email);
+            }
+
+            Map<String, User> found = new LinkedHashMap<>();
+            for (List<String> chunk : chunks(new ArrayList<>(requestedByKey.keySet()), batchChunkSize)) {
+                entityManager.createQuery("select u from User u where u.emailKey in :keys", User.class)
+                        .setParameter("keys", chunk)
+                        .getResultList()
+                        .forEach(user -> requestedByKey.get(normalize(user.getEmail()))
+                                .forEach(email -> found.put(email, user)));
+            }
+            return found;
+        });
+    }
+
+    @Override
+    public CompletableFuture<User> create(User user) {
+        return write(() -> {
+            checkUnclaimed(user);
+            entityManager.persist(new User(user));
+            // Surface unique index violations here rather than at commit
+            entityManager.flush();
+            return user;
+        });
+    }
+
+    // One transaction; inserts go out as JDBC batches of hibernate.jdbc.batch_size
+    @Override
+    public CompletableFuture<Void> createAll(List<User> users) {
+        return write(() -> {
+            for (int i = 0; i < users.size(); i++) {
+                entityManager.persist(new User(users.get(i)));
+                if ((i + 1) % insertBatchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<User> linkGoogleId(User user, String googleId) {
+        return write(() -> {
+            Optional<User> owner = entityManager.createQuery("select u from User u where u.googleId = :googleId", User.class)
+                    .setParameter("googleId", googleId)
+                    .getResultStream()
+                    .findFirst();
+            if (owner.isPresent() && !owner.get().getId().equals(user.getId())) {
+                throw new DuplicateUserException("Google account already linked to another user");
+            }
+            // Only googleId changes; merging the caller's copy could revert a concurrent change
+            User current = entityManager.find(User.class, user.getId());
+            if (current == null) {
+                throw new RuntimeException("User not found with ID: " + user.getId());
+            }
+            current.setGoogleId(googleId);
+            entityManager.flush();
+            return new User(current);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replacePassword(String id, String expectedHash, String newHash) {
+        return write(() -> entityManager
+                .createQuery("update User u set u.password = :newHash, u.updatedAt = :now " +
+                        "where u.id = :id and u.password = :expectedHash")
+                .setParameter("newHash", newHash)
+                .setParameter("now", Instant.now().truncatedTo(ChronoUnit.MICROS))
+                .setParameter("id", id)
+                .setParameter("expectedHash", expectedHash)
+                .executeUpdate() == 1);
+    }
+
+    @Override
+    public CompletableFuture<Void> save(User user) {
+        return write(() -> {
+            entityManager.merge(new User(user));
+            return null;
+        });
+    }
+
+    // Polls for rows whose updated_at moved, so replicas sharing the database evict each other's writes.
+    // A transaction can commit after rows stamped later than it were already seen, so each poll looks
+    // back poll-lookback before the newest stamp seen and skips rows already reported. Deleted rows are
+    // not reported: users are only ever deleted by hand
+    @Override
+    public AutoCloseable watchChanges(Consumer<UserChange> changed, Runnable lost) {
+        ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("user-jpa-changes-"));
+        ChangePoller changes = new ChangePoller(changed, Instant.now());
+        poller.scheduleWithFixedDelay(changes::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        return poller::shutdownNow;
+    }
+
+    private final class ChangePoller {
+
+        private final Consumer<UserChange> changed;
+        // Stamps reported within the look-back window, by user id
+        private final Map<String, Instant> reported = new HashMap<>();
+        private Instant newest;
+
+        ChangePoller(Consumer<UserChange> changed, Instant start) {
+            this.changed = changed;
+            this.newest = start;
+        }
+
+        void poll() {
+            try {
+                List<Object[]> rows = readTransactions.execute(status -> entityManager.createQuery(
+                                "select u, u.updatedAt from User u where u.updatedAt > :since order by u.updatedAt",
+                                Object[].class)
+                        .setParameter("since", newest.minus(pollLookback))
+                        .getResultList());
+                for (Object[] row : rows) {
+                    User user = (User) row[0];
+                    Instant stamp = (Instant) row[1];
+                    if (!stamp.equals(reported.put(user.getId(), stamp))) {
+                        changed.accept(new UserChange(user.getId(), new User(user)));
+                    }
+                    if (stamp.isAfter(newest)) {
+                        newest = stamp;
+                    }
+                }
+                reported.values().removeIf(stamp -> !stamp.isAfter(newest.minus(pollLookback)));
+            } catch (RuntimeException e) {
+                // Nothing is lost: the next poll starts from the same point
+                log.warn("Polling user changes failed, retrying in {}", pollInterval, e);
+            }
+        }
+    }
+
+    private void checkUnclaimed(User user) {
+        if (emailTaken(normalize(user.getEmail()))) {
+            throw new DuplicateUserException("Email already registered");
+        }
+        if (user.getGoogleId() != null && !entityManager.createQuery(
+                        "select u.id from User u where u.googleId = :googleId", String.class)
+                .setParameter("googleId", user.getGoogleId())
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty()) {
+            throw new DuplicateUserException("Google account already linked to another user");
+        }
+    }
+
+    private boolean emailTaken(String key) {
+        return !entityManager.createQuery("select u.id from User u where u.emailKey = :key", String.class)
+                .setParameter("key", key)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    private <T> CompletableFuture<T> read(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readTransactions.execute(status -> query.get()), executor);
+    }
+
+    private <T> CompletableFuture<T> write(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return transactions.execute(status -> operation.get());
+            } catch (RuntimeException e) {
+                throw duplicateOr(e);
+            }
+        }, executor);
+    }
+
+    // A concurrent insert can pass the existence check and still lose at the unique index
+    private static RuntimeException duplicateOr(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+                if (constraint.contains("ux_users_email_key")) {
+                    return new DuplicateUserException("Email already registered");
+                }
+                if (constraint.contains("ux_users_google_id")) {
+                    return new DuplicateUserException("Google account already linked to another user");
+                }
+            }
+        }
+        return e;
+    }
+
+    private static String normalize(String email) {
+        return email == null ? null : UserRepository.normalizeEmail(email);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(items.subList(i, Math.min(items.size(), i + size)));
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Embedded single-node store: users and their email/googleId indexes in concurrent hash maps.
+// Every write is appended to a write-ahead log (one JSON user per line) before it becomes visible;
+// the log is folded into a snapshot every snapshot-every records and on shutdown. Recovery loads the
+// snapshot and replays the log. With an empty directory nothing is persisted (tests, benchmarks).
+@Component
+@ConditionalOnProperty(name = "user.store.type", havingValue = "local")
+public class LocalUserStore implements UserStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalUserStore.class);
+
+    private static final String SNAPSHOT_FILE = "users.snapshot";
+    private static final String WAL_FILE = "users.wal";
+
+    private final Map<String, User> usersById = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByGoogleId = new ConcurrentHashMap<>();
+
+    // Reads are lock-free; writes are serialized so uniqueness checks and log order agree
+    private final Object writeLock = new Object();
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final boolean fsync;
+    private final int snapshotEvery;
+    private FileChannel wal;
+    private int walRecords;
+
+    @Autowired
+    public LocalUserStore(ObjectMapper objectMapper,
+                          @Value("${user.store.local.directory:data}") String directory,
+                          @Value("${user.store.local.fsync:true}") boolean fsync,
+                          @Value("${user.store.local.snapshot-every:10000}") int snapshotEvery) throws IOException {
+        this.objectMapper = objectMapper;
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.fsync = fsync;
+        this.snapshotEvery = snapshotEvery;
+        if (this.directory != null) {
+            recover();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findById(String id) {
+        return CompletableFuture.completedFuture(copyOf(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByEmail(String email) {
+        return CompletableFuture.completedFuture(copyOf(idsByEmail.get(UserRepository.normalizeEmail(email))));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByGoogleId(String googleId) {
+        return CompletableFuture.completedFuture(copyOf(idsByGoogleId.get(googleId)));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsByEmail(String email) {
+        return CompletableFuture.completedFuture(idsByEmail.containsKey(UserRepository.normalizeEmail(email)));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findAllByIds(Collection<String> ids) {
+        Map<String, User> found = new LinkedHashMap<>();
+        for (String id : ids) {
+            copyOf(id).ifPresent(user -> found.put(id, user));
+        }
+        return CompletableFuture.completedFuture(found);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> findAllByEmails(Collection<String> emails) {
+        Map<String, User> found = new LinkedHashMap<>();
+        for (String email : emails) {
+            copyOf(idsByEmail.get(UserRepository.normalizeEmail(email))).ifPresent(user -> found.put(email, user));
+        }
+        return CompletableFuture.completedFuture(found);
+    }
+
+    @Override
+    public CompletableFuture<User> create(User user) {
+        return write(() -> {
+            checkUnclaimed(user, Set.of(), Set.of());
+            append(user);
+            return user;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> createAll(List<User> users) {
+        return write(() -> {
+            // Also reject rosters that repeat an email or googleId among themselves
+            Set<String> emails = new HashSet<>();
+            Set<String> googleIds = new HashSet<>();
+            for (User user : users) {
+                checkUnclaimed(user, emails, googleIds);
+                emails.add(UserRepository.normalizeEmail(user.getEmail()));
+                if (user.getGoogleId() != null) {
+                    googleIds.add(user.getGoogleId());
+                }
+            }
+            appendAll(users);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<User> linkGoogleId(User user, String googleId) {
+        return write(() -> {
+            String owner = idsByGoogleId.get(googleId);
+            if (owner != null && !owner.equals(user.getId())) {
+                throw new DuplicateUserException("Google account already linked to another user");
+            }
+            // From the stored user, not the caller's copy, which may be stale
+            User linked = copyOf(user.getId())
+                    .orElseThrow(() -> new RuntimeException("User not found with ID: " + user.getId()));
+            linked.setGoogleId(googleId);
+            append(linked);
+            return linked;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> save(User user) {
+        return write(() -> {
+            append(user);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replacePassword(String id, String expectedHash, String newHash) {
+        return write(() -> {
+            User current = copyOf(id).orElse(null);
+            if (current == null || !Objects.equals(expectedHash, current.getPassword())) {
+                return false;
+            }
+            current.setPassword(newHash);
+            append(current);
+            return true;
+        });
+    }
+
+    private void checkUnclaimed(User user, Set<String> batchEmails, Set<String> batchGoogleIds) {
+        String email = UserRepository.normalizeEmail(user.getEmail());
+        if (idsByEmail.containsKey(email) || batchEmails.contains(email)) {
+            throw new DuplicateUserException("Email already registered");
+        }
+        if (user.getGoogleId() != null &&
+                (idsByGoogleId.containsKey(user.getGoogleId()) || batchGoogleIds.contains(user.getGoogleId()))) {
+            throw new DuplicateUserException("Google account already linked to another user");
+        }
+    }
+
+    private <T> CompletableFuture<T> write(Supplier<T> operation) {
+        try {
+            synchronized (writeLock) {
+                return CompletableFuture.completedFuture(operation.get());
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void append(User user) {
+        appendAll(List.of(user));
+    }
+
+    // Caller holds the write lock: logged (one write, one fsync) first, then made visible
+    private void appendAll(List<User> users) {
+        List<User> stored = users.stream().map(User::new).toList();
+        try {
+            if (wal != null) {
+                ByteArrayOutputStream records = new ByteArrayOutputStream();
+                for (User user : stored) {
+                    records.write(encode(user));
+                }
+                wal.write(ByteBuffer.wrap(records.toByteArray()));
+                if (fsync) {
+                    wal.force(false);
+                }
+            }
+            stored.forEach(this::apply);
+            if (wal != null && (walRecords += stored.size()) >= snapshotEvery) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the user log", e);
+        }
+    }
+
+    private void apply(User user) {
+        User previous = usersById.put(user.getId(), user);
+        if (previous != null) {
+            // Drop index entries the new version no longer claims
+            if (previous.getEmail() != null) {
+                idsByEmail.remove(UserRepository.normalizeEmail(previous.getEmail()), user.getId());
+            }
+            if (previous.getGoogleId() != null) {
+                idsByGoogleId.remove(previous.getGoogleId(), user.getId());
+            }
+        }
+        if (user.getEmail() != null) {
+            idsByEmail.put(UserRepository.normalizeEmail(user.getEmail()), user.getId());
+        }
+        if (user.getGoogleId() != null) {
+            idsByGoogleId.put(user.getGoogleId(), user.getId());
+        }
+    }
+
+    private Optional<User> copyOf(String id) {
+        User user = id == null ? null : usersById.get(id);
+        return user == null ? Optional.empty() : Optional.of(new User(user));
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        int loaded = Files.exists(snapshot) ? replay(snapshot) : 0;
+        Path walPath = directory.resolve(WAL_FILE);
+        int replayed = Files.exists(walPath) ? replay(walPath) : 0;
+
+        wal = FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        walRecords = replayed;
+        if (replayed > 0) {
+            // Start from a clean log; this also drops a torn record left by a crash mid-append
+            snapshot();
+        }
+        log.info("Local user store loaded {} users from {} ({} from snapshot, {} log records)",
+                usersById.size(), directory, loaded, replayed);
+    }
+
+    private int replay(Path file) throws IOException {
+        int records = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    apply(objectMapper.readValue(line, User.class));
+                    records++;
+                } catch (JsonProcessingException e) {
+                    log.warn("Skipping unreadable record in {}", file, e);
+                }
+            }
+        }
+        return records;
+    }
+
+    // Caller holds the write lock (or is still constructing): write a complete snapshot beside the old
+    // one, swap it in atomically, then empty the log it now covers
+    private void snapshot() throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (User user : usersById.values()) {
+                writer.write(new String(encode(user), StandardCharsets.UTF_8));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        wal.truncate(0);
+        wal.force(true);
+        walRecords = 0;
+    }
+
+    private byte[] encode(User user) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(user);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    int size() {
+        return usersById.size();
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (wal == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (walRecords > 0) {
+                snapshot();
+            }
+            wal.close();
+            wal = null;
+        }
+    }
+}
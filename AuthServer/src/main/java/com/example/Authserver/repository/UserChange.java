@@ -0,0 +1,7 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+
+// A user changed by another writer, as reported by UserStore.watchChanges; user is null once removed
+public record UserChange(String id, User user) {
+}
@@ -0,0 +1,51 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Maps users to and from Firestore documents field by field, instead of through the reflective
+// CustomClassMapper behind toObject/set. The document layout is the one that mapper wrote (every
+// property, nulls included), so documents written before and after read the same
+final class UserCodec {
+
+    // Everything but the password hash: what status and profile lookups need
+    static final String[] PROFILE_FIELDS =
+            {"id", "email", "fullName", "role", "googleId", "studentId", "roleAssigned", "disabled"};
+    static final FieldMask PROFILE_MASK = FieldMask.of(PROFILE_FIELDS);
+
+    private UserCodec() {
+    }
+
+    // Fields left out of a projected read (the password) stay null
+    static User decode(DocumentSnapshot doc) {
+        return User.builder()
+                .id(doc.getId())
+                .email(doc.getString("email"))
+                .fullName(doc.getString("fullName"))
+                .role(doc.getString("role"))
+                .googleId(doc.getString("googleId"))
+                .password(doc.getString("password"))
+                .studentId(doc.getString("studentId"))
+                .roleAssigned(Boolean.TRUE.equals(doc.getBoolean("roleAssigned")))
+                .disabled(Boolean.TRUE.equals(doc.getBoolean("disabled")))
+                .build();
+    }
+
+    static Map<String, Object> encode(User user) {
+        Map<String, Object> fields = new HashMap<>(16);
+        fields.put("id", user.getId());
+        fields.put("email", user.getEmail());
+        fields.put("fullName", user.getFullName());
+        fields.put("role", user.getRole());
+        fields.put("googleId", user.getGoogleId());
+        fields.put("password", user.getPassword());
+        fields.put("studentId", user.getStudentId());
+        fields.put("roleAssigned", user.isRoleAssigned());
+        fields.put("disabled", user.isDisabled());
+        return fields;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.Authserver.repository;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// One-off job that writes users_by_email / users_by_google pointers for users created before the
+// index existed. Run once with user.index.backfill=true, then set user.index.query-fallback=false.
+@Component
+@ConditionalOnExpression("${user.index.backfill:false} and '${user.store.type:firestore}' == 'firestore'")
+public class UserIndexBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIndexBackfill.class);
+
+    // Each user can produce two pointer writes; a Firestore batch holds at most 500
+    private static final int PAGE_SIZE = 200;
+
+    private final Firestore firestore;
+
+    public UserIndexBackfill(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        CollectionReference users = firestore.collection("users");
+        int scanned = 0;
+        int written = 0;
+        QueryDocumentSnapshot last = null;
+
+        while (true) {
+            var query = users.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+            List<QueryDocumentSnapshot> page = (last == null ? query : query.startAfter(last)).get().get().getDocuments();
+            if (page.isEmpty()) {
+                break;
+            }
+            written += backfill(page);
+            scanned += page.size();
+            last = page.get(page.size() - 1);
+        }
+
+        log.info("User index backfill finished: {} users scanned, {} pointers written", scanned, written);
+    }
+
+    private int backfill(List<QueryDocumentSnapshot> page) throws Exception {
+        List<DocumentReference> refs = new ArrayList<>();
+        List<String> userIds = new ArrayList<>();
+        for (QueryDocumentSnapshot user : page) {
+            String email = user.getString("email");
+            String googleId = user.getString("googleId");
+            if (email != null) {
+                refs.add(firestore.collection("users_by_email").document(FirestoreUserStore.indexKey(UserRepository.normalizeEmail(email))));
+                userIds.add(user.getId());
+            }
+            if (googleId != null) {
+                refs.add(firestore.collection("users_by_google").document(FirestoreUserStore.indexKey(googleId)));
+                userIds.add(user.getId());
+            }
+        }
+        if (refs.isEmpty()) {
+            return 0;
+        }
+
+        // Only fill gaps: existing pointers are authoritative, a different owner means duplicate data
+        List<DocumentSnapshot> pointers = firestore.getAll(refs.toArray(new DocumentReference[0])).get();
+        WriteBatch batch = firestore.batch();
+        int writes = 0;
+        for (int i = 0; i < refs.size(); i++) {
+            DocumentSnapshot pointer = pointers.get(i);
+            if (!pointer.exists()) {
+                batch.set(refs.get(i), Map.of("userId", userIds.get(i)));
+                writes++;
+            } else if (!userIds.get(i).equals(pointer.getString("userId"))) {
+                log.warn("Pointer {} belongs to user {}, skipping duplicate user {}",
+                        refs.get(i).getPath(), pointer.getString("userId"), userIds.get(i));
+            }
+        }
+        if (writes > 0) {
+            batch.commit().get();
+        }
+        return writes;
+    }
+}
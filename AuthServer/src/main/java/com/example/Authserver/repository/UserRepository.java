@@ -1,60 +1,328 @@
 package com.example.Authserver.repository;
 
+import com.example.Authserver.cache.UserCache;
 import com.example.Authserver.entity.User;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.CollectionReference;
-import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.Query;
-import com.google.cloud.firestore.QuerySnapshot;
+import com.example.Authserver.observability.AsyncObservations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+// Caching and request coalescing in front of the configured UserStore
 @Repository
 public class UserRepository {
 
-    private final CollectionReference usersCollection;
+    private static final Logger log = LoggerFactory.getLogger(UserRepository.class);
+
+    private final UserStore store;
+    private final UserCache userCache;
+    private final ObservationRegistry observationRegistry;
+
+    // Concurrent cache misses for the same key (e.g. a double-clicked login) share one lookup
+    private final Map<String, CompletableFuture<Optional<User>>> inFlightLookups = new ConcurrentHashMap<>();
+    private final Counter coalescedLookups;
+
+    @Value("${user.cache.listen-for-changes:true}")
+    private boolean listenForChanges;
+
+    private AutoCloseable changeWatch;
+    private final List<Consumer<UserChange>> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> lostListeners = new CopyOnWriteArrayList<>();
 
     @Autowired
-    public UserRepository(Firestore firestore) {
-        this.usersCollection = firestore.collection("users");
+    public UserRepository(UserStore store, UserCache userCache, MeterRegistry meterRegistry,
+                          ObservationRegistry observationRegistry) {
+        this.store = store;
+        this.userCache = userCache;
+        this.observationRegistry = observationRegistry;
+        this.coalescedLookups = meterRegistry.counter("user.repository.coalesced");
+    }
+
+    @PostConstruct
+    void startChangeListener() {
+        if (!listenForChanges) {
+            return;
+        }
+        // Evict users changed by any replica so cached reads never outlive a write
+        changeWatch = store.watchChanges(change -> {
+            userCache.invalidate(change.id());
+            changeListeners.forEach(listener -> listener.accept(change));
+        }, () -> {
+            log.warn("User change notifications lost, clearing cache");
+            userCache.invalidateAll();
+            lostListeners.forEach(Runnable::run);
+        });
+    }
+
+    // Reports every write committed through this repository and every change the store reports from
+    // other writers (which may repeat this instance's own writes), or calls lost when changes may have
+    // been missed
+    public void watchChanges(Consumer<UserChange> changed, Runnable lost) {
+        changeListeners.add(changed);
+        lostListeners.add(lost);
     }
 
+    private void committed(User user) {
+        if (!changeListeners.isEmpty()) {
+            UserChange change = new UserChange(user.getId(), new User(user));
+            changeListeners.forEach(listener -> listener.accept(change));
+        }
+    }
+
+    @PreDestroy
+    void stopChangeListener() throws Exception {
+        if (changeWatch != null) {
+            changeWatch.close();
+        }
+    }
+
+    // Write-behind: returns once the write is queued. Use saveAsync to wait for the commit
     public User save(User user) {
-        usersCollection.document(user.getId()).set(user);
+        saveAsync(user);
         return user;
     }
 
+    // For updates that keep the user's email and googleId
+    public CompletableFuture<User> saveAsync(User user) {
+        User snapshot = new User(user);
+        userCache.put(snapshot);
+        return observed("save", () -> store.save(snapshot)).handle((committed, error) -> {
+            if (error != null) {
+                // The cache was updated optimistically; drop it so reads go back to the store
+                userCache.invalidate(snapshot.getId());
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            committed(snapshot);
+            return user;
+        });
+    }
+
+    // Swaps in a rehashed password without writing the rest of the user, so a role or disabled change
+    // committed since the user was read is kept; skipped if the password itself changed meanwhile
+    public CompletableFuture<Boolean> replacePassword(User user, String newHash) {
+        return observed("replacePassword", () -> store.replacePassword(user.getId(), user.getPassword(), newHash))
+                .thenApply(replaced -> {
+                    // The cached copy still holds the old hash
+                    userCache.invalidate(user.getId());
+                    return replaced;
+                });
+    }
+
+    // Inserts a new user, failing with DuplicateUserException if the email or googleId is already taken
+    public CompletableFuture<User> create(User user) {
+        return observed("create", () -> store.create(user)).thenApply(created -> {
+            userCache.put(created);
+            committed(created);
+            return created;
+        });
+    }
+
+    // Bulk insert for rosters whose emails were already checked. All or nothing: a single taken
+    // email or googleId fails the whole call and the caller falls back to create() per user
+    public CompletableFuture<Void> createAll(List<User> users) {
+        return observed("createAll", () -> store.createAll(users)).thenRun(() -> users.forEach(this::committed));
+    }
+
+    // Attaches a Google account to an existing user, failing if another user already holds it
+    public CompletableFuture<User> linkGoogleId(User user, String googleId) {
+        return observed("linkGoogleId", () -> store.linkGoogleId(user, googleId)).thenApply(linked -> {
+            userCache.put(linked);
+            committed(linked);
+            return linked;
+        });
+    }
+
     public Optional<User> findById(String id) throws ExecutionException, InterruptedException {
-        var doc = usersCollection.document(id).get().get();
-        return doc.exists() ? Optional.of(doc.toObject(User.class)) : Optional.empty();
+        return findByIdAsync(id).get();
     }
 
     public Optional<User> findByEmail(String email) throws ExecutionException, InterruptedException {
-        Query query = usersCollection.whereEqualTo("email", email);
-        ApiFuture<QuerySnapshot> future = query.get();
-        var docs = future.get().getDocuments();
-
-        return docs.isEmpty() ?
-                Optional.empty() :
-                Optional.of(docs.get(0).toObject(User.class));
+        return findByEmailAsync(email).get();
     }
 
     public Optional<User> findByGoogleId(String googleId) throws ExecutionException, InterruptedException {
-        Query query = usersCollection.whereEqualTo("googleId", googleId);
-        ApiFuture<QuerySnapshot> future = query.get();
-        var docs = future.get().getDocuments();
-
-        return docs.isEmpty() ?
-                Optional.empty() :
-                Optional.of(docs.get(0).toObject(User.class));
+        return findByGoogleIdAsync(googleId).get();
     }
 
     public boolean existsByEmail(String email) throws ExecutionException, InterruptedException {
-        Query query = usersCollection.whereEqualTo("email", email);
-        ApiFuture<QuerySnapshot> future = query.get();
-        return !future.get().isEmpty();
+        return existsByEmailAsync(email).get();
+    }
+
+    public CompletableFuture<Optional<User>> findByIdAsync(String id) {
+        Optional<User> cached = userCache.getById(id);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return coalesce("id:" + id, "findById", () -> store.findById(id));
+    }
+
+    // For callers that only show or authorize the user: the password hash is never read from the
+    // store nor handed out, and misses are cached as profiles
+    public CompletableFuture<Optional<User>> findProfileByIdAsync(String id) {
+        Optional<User> cached = userCache.getProfileById(id);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return coalesce("profile:" + id, "findProfileById", () -> store.findProfileById(id), userCache::putProfile);
+    }
+
+    // Emails are normalized once here, so the cache, the coalescing key and the store see the same one
+    public CompletableFuture<Optional<User>> findByEmailAsync(String email) {
+        String key = normalizeEmail(email);
+        Optional<User> cached = userCache.getByEmail(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return coalesce("email:" + key, "findByEmail", () -> store.findByEmail(key));
+    }
+
+    public CompletableFuture<Optional<User>> findByGoogleIdAsync(String googleId) {
+        Optional<User> cached = userCache.getByGoogleId(googleId);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return coalesce("google:" + googleId, "findByGoogleId", () -> store.findByGoogleId(googleId));
+    }
+
+    // Google sign-in needs both lookups; the store resolves them together, preferring the googleId match
+    public CompletableFuture<Optional<User>> findByGoogleIdOrEmailAsync(String googleId, String email) {
+        String key = normalizeEmail(email);
+        Optional<User> cached = userCache.getByGoogleId(googleId).or(() -> userCache.getByEmail(key));
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return coalesce("google:" + googleId + "|email:" + key,
+                "findByGoogleIdOrEmail", () -> store.findByGoogleIdOrEmail(googleId, key));
+    }
+
+    public CompletableFuture<Boolean> existsByEmailAsync(String email) {
+        String key = normalizeEmail(email);
+        if (userCache.getByEmail(key).isPresent()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return observed("existsByEmail", () -> store.existsByEmail(key));
+    }
+
+    // Cached users are served locally; the rest come from the store in one batched call
+    public CompletableFuture<Map<String, User>> findAllByIds(Collection<String> ids) {
+        return findAll(ids, userCache::getById, "findAllByIds", store::findAllByIds, userCache::put);
+    }
+
+    // Keyed by the email as requested; the stores normalize the ones they look up
+    public CompletableFuture<Map<String, User>> findAllByEmails(Collection<String> emails) {
+        return findAll(emails, email -> userCache.getByEmail(normalizeEmail(email)), "findAllByEmails",
+                store::findAllByEmails, userCache::put);
+    }
+
+    // Like findAllByIds, without password hashes
+    public CompletableFuture<Map<String, User>> findProfilesByIds(Collection<String> ids) {
+        return findAll(ids, userCache::getProfileById, "findProfilesByIds", store::findProfilesByIds,
+                userCache::putProfile);
+    }
+
+    // Like findAllByEmails, without password hashes
+    public CompletableFuture<Map<String, User>> findProfilesByEmails(Collection<String> emails) {
+        return findAll(emails, email -> userCache.getProfileByEmail(normalizeEmail(email)), "findProfilesByEmails",
+                store::findProfilesByEmails, userCache::putProfile);
+    }
+
+    private CompletableFuture<Map<String, User>> findAll(Collection<String> keys, Function<String, Optional<User>> cached,
+                                                         String operation,
+                                                         Function<List<String>, CompletableFuture<Map<String, User>>> lookup,
+                                                         BiConsumer<User, Long> cache) {
+        Map<String, User> found = new ConcurrentHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            cached.apply(key).ifPresentOrElse(
+                    user -> found.put(key, user),
+                    () -> missing.add(key));
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(found);
+        }
+
+        long version = userCache.version();
+        return observed(operation, () -> lookup.apply(missing)).thenApply(users -> {
+            users.forEach((key, user) -> {
+                cache.accept(user, version);
+                found.put(key, user);
+            });
+            return found;
+        });
+    }
+
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Every caller gets its own copy: users are mutable and callers such as assignRole modify them
+    private CompletableFuture<Optional<User>> coalesce(String key, String operation,
+                                                       Supplier<CompletableFuture<Optional<User>>> lookup) {
+        return coalesce(key, operation, lookup, userCache::put);
+    }
+
+    private CompletableFuture<Optional<User>> coalesce(String key, String operation,
+                                                       Supplier<CompletableFuture<Optional<User>>> lookup,
+                                                       BiConsumer<User, Long> cache) {
+        CompletableFuture<Optional<User>> shared = new CompletableFuture<>();
+        CompletableFuture<Optional<User>> existing = inFlightLookups.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalescedLookups.increment();
+            return existing.thenApply(user -> user.map(User::new));
+        }
+
+        // A change notification arriving mid-lookup may be for this user; the result is then
+        // returned but not cached
+        long version = userCache.version();
+        observed(operation, lookup).whenComplete((user, error) -> {
+            // Remove first so lookups starting after this one completes see fresh data
+            inFlightLookups.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                user.ifPresent(found -> cache.accept(found, version));
+                shared.complete(user);
+            }
+        });
+        return shared.thenApply(user -> user.map(User::new));
+    }
+
+    // One timer (and span) per store round trip, tagged by operation; cache hits never get here
+    private <T> CompletableFuture<T> observed(String operation, Supplier<CompletableFuture<T>> call) {
+        return AsyncObservations.observe(observationRegistry,
+                Observation.createNotStarted("user.store", observationRegistry)
+                        .contextualName("user-store " + operation)
+                        .lowCardinalityKeyValue("operation", operation),
+                call);
     }
-}
\ No newline at end of file
+}
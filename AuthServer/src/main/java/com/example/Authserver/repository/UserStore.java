@@ -0,0 +1,80 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Storage engine behind UserRepository, selected with user.store.type. Implementations do no caching
+// or request coalescing (UserRepository does both) and hand out users the caller may modify.
+public interface UserStore {
+
+    CompletableFuture<Optional<User>> findById(String id);
+
+    CompletableFuture<Optional<User>> findByEmail(String email);
+
+    CompletableFuture<Optional<User>> findByGoogleId(String googleId);
+
+    // Prefers the googleId match
+    default CompletableFuture<Optional<User>> findByGoogleIdOrEmail(String googleId, String email) {
+        CompletableFuture<Optional<User>> byEmail = findByEmail(email);
+        return findByGoogleId(googleId).thenCombine(byEmail, (g, e) -> g.or(() -> e));
+    }
+
+    CompletableFuture<Boolean> existsByEmail(String email);
+
+    // Results are keyed by id; missing users are absent
+    CompletableFuture<Map<String, User>> findAllByIds(Collection<String> ids);
+
+    // Results are keyed by the email as given; missing users are absent
+    CompletableFuture<Map<String, User>> findAllByEmails(Collection<String> emails);
+
+    // Users without their password hash, for lookups that only show or authorize them. Stores that
+    // cannot read part of a user read it whole and drop the hash
+    default CompletableFuture<Optional<User>> findProfileById(String id) {
+        return findById(id).thenApply(user -> user.map(User::withoutPassword));
+    }
+
+    default CompletableFuture<Map<String, User>> findProfilesByIds(Collection<String> ids) {
+        return findAllByIds(ids).thenApply(UserStore::withoutPasswords);
+    }
+
+    default CompletableFuture<Map<String, User>> findProfilesByEmails(Collection<String> emails) {
+        return findAllByEmails(emails).thenApply(UserStore::withoutPasswords);
+    }
+
+    // Fails with DuplicateUserException if the email or googleId already belongs to a user
+    CompletableFuture<User> create(User user);
+
+    // All or nothing: one taken email or googleId fails the whole call
+    CompletableFuture<Void> createAll(List<User> users);
+
+    // Fails with DuplicateUserException if another user already holds the Google account
+    CompletableFuture<User> linkGoogleId(User user, String googleId);
+
+    // Upsert for updates that keep the user's email and googleId
+    CompletableFuture<Void> save(User user);
+
+    // Sets the password hash, and nothing else, only if the stored one is still expectedHash. False
+    // when it changed (or the user was deleted) in the meantime
+    CompletableFuture<Boolean> replacePassword(String id, String expectedHash, String newHash);
+
+    // Reports users changed by other writers (e.g. other replicas), with their new state, so caches
+    // can drop them, or calls lost when changes may have been missed. Single-writer stores have
+    // nothing to report
+    default AutoCloseable watchChanges(Consumer<UserChange> changed, Runnable lost) {
+        return () -> {
+        };
+    }
+
+    private static Map<String, User> withoutPasswords(Map<String, User> users) {
+        Map<String, User> profiles = new LinkedHashMap<>();
+        users.forEach((key, user) -> profiles.put(key, user.withoutPassword()));
+        return profiles;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.Authserver.repository;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Coalesces user writes arriving within a short window into WriteBatch commits. Writes to the same
+// user id within a window collapse to the latest one; every caller's future completes with the commit.
+// A window's batch only commits after the previous window's, so an older write to a user can never
+// land after a newer one
+@Component
+@ConditionalOnProperty(name = "user.store.type", havingValue = "firestore", matchIfMissing = true)
+public class UserWriteBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(UserWriteBatcher.class);
+
+    private final Firestore firestore;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("user-write-"));
+
+    private final Object lock = new Object();
+    private Map<String, PendingWrite> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+    // The previous window's commits; failed or not, the next window waits for them
+    private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null);
+
+    private final MeterRegistry meterRegistry;
+    private final Counter coalescedWrites;
+    private final Counter failedWrites;
+    private final DistributionSummary batchSizes;
+
+    public UserWriteBatcher(Firestore firestore, MeterRegistry meterRegistry,
+                            @Value("${user.write.window:20ms}") Duration window,
+                            @Value("${user.write.max-batch-size:150}") int maxBatchSize) {
+        this.firestore = firestore;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.meterRegistry = meterRegistry;
+        this.coalescedWrites = meterRegistry.counter("user.write.coalesced");
+        this.failedWrites = meterRegistry.counter("user.write.failures");
+        this.batchSizes = DistributionSummary.builder("user.write.batch.size").register(meterRegistry);
+        Gauge.builder("user.write.pending", this, UserWriteBatcher::pendingCount).register(meterRegistry);
+    }
+
+    // The write stages its document operations on the batch; ops for one id must stay under one key
+    public CompletableFuture<Void> enqueue(String id, Consumer<WriteBatch> write) {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        boolean full;
+        synchronized (lock) {
+            PendingWrite previous = pending.get(id);
+            if (previous != null) {
+                previous.write = write;
+                previous.callers.add(committed);
+                coalescedWrites.increment();
+            } else {
+                pending.put(id, new PendingWrite(write, committed));
+            }
+
+            full = pending.size() >= maxBatchSize;
+            if (!full && !flushScheduled) {
+                flushScheduled = true;
+                scheduler.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full) {
+            scheduler.execute(this::flush);
+        }
+        return committed;
+    }
+
+    CompletableFuture<Void> flush() {
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return lastCommit;
+            }
+            List<PendingWrite> writes = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            lastCommit = lastCommit.handle((done, error) -> null).thenCompose(previous -> commitAll(writes));
+            return lastCommit;
+        }
+    }
+
+    // The ids in one window are distinct, so its chunks may commit in parallel
+    private CompletableFuture<Void> commitAll(List<PendingWrite> writes) {
+        // Concurrent enqueues can overshoot the size trigger; keep each commit under Firestore's 500 ops
+        List<CompletableFuture<Void>> commits = new ArrayList<>();
+        for (int i = 0; i < writes.size(); i += maxBatchSize) {
+            commits.add(commit(writes.subList(i, Math.min(writes.size(), i + maxBatchSize))));
+        }
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> commit(List<PendingWrite> writes) {
+        WriteBatch batch = firestore.batch();
+        for (PendingWrite write : writes) {
+            write.write.accept(batch);
+        }
+        batchSizes.record(writes.size());
+        meterRegistry.counter("user.repository.round.trips", "operation", "commit").increment();
+
+        return FirestoreFutures.toCompletableFuture(batch.commit(), MoreExecutors.directExecutor())
+                .handle((results, error) -> {
+                    if (error != null) {
+                        failedWrites.increment(writes.size());
+                        log.warn("User write batch of {} failed", writes.size(), error);
+                    }
+                    for (PendingWrite write : writes) {
+                        for (CompletableFuture<Void> caller : write.callers) {
+                            if (error != null) {
+                                caller.completeExceptionally(error);
+                            } else {
+                                caller.complete(null);
+                            }
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    private int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdown();
+        try {
+            flush().get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Pending user writes may not have been committed on shutdown", e);
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private Consumer<WriteBatch> write;
+        private final List<CompletableFuture<Void>> callers = new ArrayList<>();
+
+        private PendingWrite(Consumer<WriteBatch> write, CompletableFuture<Void> caller) {
+            this.write = write;
+            this.callers.add(caller);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.Authserver.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// HMAC-SHA256 signing keys by key id, parsed from "kid:base64secret,kid:base64secret". The first key
+// signs; the rest are still accepted so keys can be rotated without invalidating what they signed
+public class HmacKeys {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Map<String, SecretKeySpec> keys;
+    private final String activeKeyId;
+    private final boolean ephemeral;
+
+    // An empty spec gets a random key, which only verifies on this instance
+    public HmacKeys(String spec, String property) {
+        this.keys = parse(spec, property);
+        this.ephemeral = keys.isEmpty();
+        if (ephemeral) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            keys.put("ephemeral", new SecretKeySpec(secret, ALGORITHM));
+        }
+        this.activeKeyId = keys.keySet().iterator().next();
+    }
+
+    public boolean isEphemeral() {
+        return ephemeral;
+    }
+
+    public String activeKeyId() {
+        return activeKeyId;
+    }
+
+    public byte[] sign(String data) {
+        return sign(keys.get(activeKeyId), data);
+    }
+
+    public boolean verify(String keyId, String data, byte[] signature) {
+        SecretKeySpec key = keys.get(keyId);
+        return key != null && MessageDigest.isEqual(sign(key, data), signature);
+    }
+
+    private static byte[] sign(SecretKeySpec key, String data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign with " + ALGORITHM, e);
+        }
+    }
+
+    private static Map<String, SecretKeySpec> parse(String spec, String property) {
+        Map<String, SecretKeySpec> parsed = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException(property + " entries must look like kid:base64secret");
+            }
+            String keyId = entry.substring(0, separator).trim();
+            if (keyId.contains(".")) {
+                throw new IllegalArgumentException(property + " key id " + keyId + " must not contain '.'");
+            }
+            byte[] secret = Base64.getDecoder().decode(entry.substring(separator + 1).trim());
+            if (secret.length < 32) {
+                throw new IllegalArgumentException(property + " key " + keyId + " must be at least 256 bits");
+            }
+            parsed.put(keyId, new SecretKeySpec(secret, ALGORITHM));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.Authserver.security;
+
+import com.example.Authserver.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Token-bucket limits on POST /api/auth/login per client IP and per email, checked before the request
+// reaches Spring Security or the controller, so a rejected attempt never reads the user store or hashes.
+// Every attempt takes an IP token; an email token is taken only when the attempt fails, so a user signing
+// in successfully never uses up the email's budget. The client IP is the x-forwarded-for address resolved
+// by Tomcat's RemoteIpValve (server.tomcat.remoteip.*)
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/api/auth/login";
+    // Far more than any real login body; larger ones are refused rather than buffered
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final TokenBucketLimiter byIp;
+    private final TokenBucketLimiter byEmail;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    public LoginRateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${auth.rate-limit.ip.capacity:200}") int ipCapacity,
+                                @Value("${auth.rate-limit.ip.refill-period:1m}") Duration ipRefillPeriod,
+                                @Value("${auth.rate-limit.email.capacity:10}") int emailCapacity,
+                                @Value("${auth.rate-limit.email.refill-period:10m}") Duration emailRefillPeriod,
+                                @Value("${auth.rate-limit.max-keys:50000}") int maxKeys) {
+        this.byIp = new TokenBucketLimiter(ipCapacity, ipRefillPeriod, maxKeys);
+        this.byEmail = new TokenBucketLimiter(emailCapacity, emailRefillPeriod, maxKeys);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) ||
+                !request.getRequestURI().equals(request.getContextPath() + LOGIN_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long wait = byIp.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            reject(response, "ip", wait);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            write(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+            return;
+        }
+        String email = email(body);
+        if (email != null && (wait = byEmail.waitTime(email)) > 0) {
+            reject(response, "email", wait);
+            return;
+        }
+
+        chain.doFilter(new CachedBodyRequest(request, body), response);
+        if (email == null) {
+            return;
+        }
+        // The login endpoint answers asynchronously, so the outcome is known only when the request completes
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    chargeIfFailed(email, response);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            chargeIfFailed(email, response);
+        }
+    }
+
+    private void chargeIfFailed(String email, HttpServletResponse response) {
+        if (response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            byEmail.tryAcquire(email);
+        }
+    }
+
+    // Malformed bodies pass through without an email limit; the controller rejects them
+    private String email(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() && !email.asText().isBlank() ? UserRepository.normalizeEmail(email.asText()) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, String limit, long waitNanos) throws IOException {
+        meterRegistry.counter("auth.login.throttled", "limit", limit).increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        write(response, HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, please retry later");
+    }
+
+    private void write(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+
+    // The body has been read to find the email; the controller reads it again from here
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The body is already in memory, so all of it is available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -22,13 +23,15 @@ import java.util.concurrent.ExecutionException;
 public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
     private final UserService userService;
+    private final SessionTokenService sessionTokens;
 
     @Value("${frontend.url:https://your-cloudrun-frontend-url.run.app}")
     private String frontendUrl;
 
     @Autowired
-    public OAuth2SuccessHandler(UserService userService) {
+    public OAuth2SuccessHandler(UserService userService, SessionTokenService sessionTokens) {
         this.userService = userService;
+        this.sessionTokens = sessionTokens;
     }
 
     @Override
@@ -53,9 +56,14 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
             throw new RuntimeException(e);
         }
 
-        // Store user ID in session
-        HttpSession session = request.getSession();
-        session.setAttribute("userId", user.getId());
+        if (sessionTokens.isTokenMode()) {
+            // Hand the browser a signed token instead of tying it to this instance's session
+            response.addHeader(HttpHeaders.SET_COOKIE, sessionTokens.cookie(sessionTokens.issue(user)).toString());
+        } else {
+            // Store user ID in session
+            HttpSession session = request.getSession();
+            session.setAttribute("userId", user.getId());
+        }
 
         // Get the origin for CORS-compatible redirects
         String origin = request.getHeader("Origin");
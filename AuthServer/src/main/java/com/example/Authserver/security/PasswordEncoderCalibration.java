@@ -0,0 +1,126 @@
+package com.example.Authserver.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Builds the delegating encoder with a work factor measured on this host instead of a hard-coded default
+public final class PasswordEncoderCalibration {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoderCalibration.class);
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    // Spring Security's recommended Argon2 memory/parallelism; only iterations are calibrated
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int ARGON2_MEMORY_KIB = 1 << 14;
+
+    private PasswordEncoderCalibration() {
+    }
+
+    public static PasswordEncoder create(String algorithm, Duration targetHashTime,
+                                         int bcryptCost, int bcryptMinCost, int bcryptMaxCost,
+                                         int argon2Iterations, int argon2MaxIterations) {
+        if (bcryptCost <= 0) {
+            bcryptCost = calibrate(BCRYPT, targetHashTime, bcryptMinCost, bcryptMaxCost,
+                    cost -> new BCryptPasswordEncoder(cost), true);
+        }
+
+        PasswordEncoder argon2 = null;
+        if (ARGON2.equals(algorithm)) {
+            if (argon2Iterations <= 0) {
+                argon2Iterations = calibrate(ARGON2, targetHashTime, 1, argon2MaxIterations,
+                        PasswordEncoderCalibration::argon2, false);
+            }
+            argon2 = argon2(argon2Iterations);
+        } else if (!BCRYPT.equals(algorithm)) {
+            throw new IllegalArgumentException("Unsupported password algorithm: " + algorithm);
+        }
+
+        PasswordEncoder bcrypt = new TargetCostBCryptPasswordEncoder(bcryptCost);
+        Map<String, PasswordEncoder> encoders = argon2 == null ?
+                Map.of(BCRYPT, bcrypt) :
+                Map.of(BCRYPT, bcrypt, ARGON2, argon2);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    // Largest work factor whose measured hash time stays within the target
+    private static int calibrate(String algorithm, Duration target, int min, int max,
+                                 IntFunction<PasswordEncoder> encoderFactory, boolean exponential) {
+        long baseNanos = time(encoderFactory.apply(min));
+        long targetNanos = target.toNanos();
+
+        int chosen = min;
+        for (int factor = min + 1; factor <= max; factor++) {
+            long estimate = exponential ?
+                    baseNanos << (factor - min) :
+                    baseNanos * factor / min;
+            if (estimate > targetNanos) {
+                break;
+            }
+            chosen = factor;
+        }
+
+        log.info("Calibrated {} work factor to {} (base {} ms at {}, target {} ms)",
+                algorithm, chosen, baseNanos / 1_000_000, min, target.toMillis());
+        return chosen;
+    }
+
+    private static long time(PasswordEncoder encoder) {
+        // Warm up once, then keep the best of a few runs to filter out scheduling noise
+        encoder.encode(SAMPLE_PASSWORD);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM,
+                ARGON2_MEMORY_KIB, iterations);
+    }
+
+    // Flags hashes below the calibrated cost (and unparseable ones), never stronger ones: replicas on
+    // different hardware calibrate differently and must not keep rehashing, or weakening, each other's
+    static class TargetCostBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+        private static final Pattern COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+        private final int cost;
+
+        TargetCostBCryptPasswordEncoder(int cost) {
+            super(cost);
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null || encodedPassword.isEmpty()) {
+                return false;
+            }
+            Matcher matcher = COST.matcher(encodedPassword);
+            return !matcher.find() || Integer.parseInt(matcher.group(1)) < cost;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.Authserver.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs BCrypt work on a CPU-sized pool so a login storm cannot starve the request threads
+@Component
+public class PasswordHasher {
+
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final Duration retryAfter;
+
+    private final Map<String, Timer> queueWaitTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+
+    public PasswordHasher(MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                          @Value("${auth.password.threads:0}") int threads,
+                          @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                          @Value("${auth.password.retry-after:1s}") Duration retryAfter) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.retryAfter = retryAfter;
+
+        Gauge.builder("auth.password.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    // Fails fast with PasswordHasherBusyException instead of queueing without bound
+    public <T> CompletableFuture<T> submit(String endpoint, Supplier<T> task) {
+        CompletableFuture<T> future = tryExecute(endpoint, task);
+        if (future == null) {
+            rejectionCounters.computeIfAbsent(endpoint, ep -> Counter.builder("auth.password.rejected")
+                    .tag("endpoint", ep)
+                    .register(meterRegistry)).increment();
+            return CompletableFuture.failedFuture(new PasswordHasherBusyException(retryAfter));
+        }
+        return future;
+    }
+
+    // For bulk work: when the queue is full the caller hashes inline, which throttles it to the
+    // pool's pace without failing rows or crowding out interactive logins
+    public <T> CompletableFuture<T> submitOrRun(String endpoint, Supplier<T> task) {
+        CompletableFuture<T> future = tryExecute(endpoint, task);
+        if (future == null) {
+            try {
+                return CompletableFuture.completedFuture(hash(endpoint, task));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return future;
+    }
+
+    private <T> CompletableFuture<T> tryExecute(String endpoint, Supplier<T> task) {
+        Timer queueWait = queueWaitTimers.computeIfAbsent(endpoint, e -> Timer.builder("auth.password.queue.wait")
+                .tag("endpoint", e)
+                .register(meterRegistry));
+        long enqueuedAt = System.nanoTime();
+        Observation submitter = observationRegistry.getCurrentObservation();
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                // In the submitter's observation: the hash becomes its child, and stages chained onto the
+                // future run in it rather than detached on this pool thread
+                try (Observation.Scope scope = submitter == null ? null : submitter.openScope()) {
+                    future.complete(hash(endpoint, task));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        return future;
+    }
+
+    // auth.password.hash is CPU time only; time spent waiting for a thread is auth.password.queue.wait
+    private <T> T hash(String endpoint, Supplier<T> task) {
+        return Observation.createNotStarted("auth.password.hash", observationRegistry)
+                .contextualName("password-hash " + endpoint)
+                .lowCardinalityKeyValue("endpoint", endpoint)
+                .observe(task);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
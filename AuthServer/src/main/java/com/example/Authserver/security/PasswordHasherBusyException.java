@@ -0,0 +1,17 @@
+package com.example.Authserver.security;
+
+import java.time.Duration;
+
+public class PasswordHasherBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHasherBusyException(Duration retryAfter) {
+        super("Too many concurrent sign-ins, please retry shortly");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
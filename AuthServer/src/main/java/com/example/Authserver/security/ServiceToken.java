@@ -0,0 +1,31 @@
+package com.example.Authserver.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// Matches requests from backend services (e.g. the Python service or Prometheus), which send
+// auth.service.token as a bearer token. While the token is unset no request matches
+@Component
+public class ServiceToken implements RequestMatcher {
+
+    private final byte[] token;
+
+    @Autowired
+    public ServiceToken(@Value("${auth.service.token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return token.length > 0 && header != null && header.startsWith("Bearer ") &&
+                MessageDigest.isEqual(token, header.substring(7).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.Authserver.security;
+
+import com.example.Authserver.entity.User;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+// Issues and verifies compact HMAC-signed session tokens: v1.<kid>.<payload>.<signature>,
+// where payload is base64url("userId|role|expiresAtEpochSeconds"). Verification needs no storage.
+@Component
+public class SessionTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+
+    public static final String COOKIE_NAME = "AUTH_TOKEN";
+
+    private static final String VERSION = "v1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean tokenMode;
+    private final Duration ttl;
+    private final boolean secureCookie;
+    private final Clock clock;
+
+    // First key signs; the rest are still accepted so keys can be rotated without logging users out
+    private final HmacKeys keys;
+
+    @Autowired
+    public SessionTokenService(@Value("${auth.session.mode:session}") String mode,
+                               @Value("${auth.token.keys:}") String keys,
+                               @Value("${auth.token.ttl:12h}") Duration ttl,
+                               @Value("${auth.token.cookie-secure:true}") boolean secureCookie) {
+        this(mode, keys, ttl, secureCookie, Clock.systemUTC());
+    }
+
+    SessionTokenService(String mode, String keys, Duration ttl, boolean secureCookie, Clock clock) {
+        this.tokenMode = "token".equalsIgnoreCase(mode);
+        this.ttl = ttl;
+        this.secureCookie = secureCookie;
+        this.clock = clock;
+        this.keys = new HmacKeys(keys, "auth.token.keys");
+        if (this.keys.isEphemeral() && tokenMode) {
+            log.warn("auth.token.keys is not set; using a random key, tokens will not verify on other replicas");
+        }
+    }
+
+    public boolean isTokenMode() {
+        return tokenMode;
+    }
+
+    public String issue(User user) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String role = user.getRole() == null ? "" : user.getRole();
+        String payload = ENCODER.encodeToString(
+                (user.getId() + "|" + role + "|" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        String signed = VERSION + "." + keys.activeKeyId() + "." + payload;
+        return signed + "." + ENCODER.encodeToString(keys.sign(signed));
+    }
+
+    public Optional<SessionToken> verify(String token) {
+        if (token == null || !token.startsWith(VERSION + ".")) {
+            return Optional.empty();
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 4) {
+            return Optional.empty();
+        }
+        try {
+            if (!keys.verify(parts[1], parts[0] + "." + parts[1] + "." + parts[2], DECODER.decode(parts[3]))) {
+                return Optional.empty();
+            }
+
+            String[] claims = new String(DECODER.decode(parts[2]), StandardCharsets.UTF_8).split("\\|", -1);
+            if (claims.length != 3) {
+                return Optional.empty();
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(claims[2]));
+            if (!clock.instant().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+            return Optional.of(new SessionToken(claims[0], claims[1].isEmpty() ? null : claims[1], expiresAt));
+        } catch (IllegalArgumentException e) {
+            // Malformed base64 or expiry
+            return Optional.empty();
+        }
+    }
+
+    // Bearer header first (API clients), then the cookie set on login (browsers)
+    public Optional<SessionToken> fromRequest(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith("Bearer ")) {
+            Optional<SessionToken> token = verify(header.substring(7));
+            if (token.isPresent()) {
+                return token;
+            }
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    return verify(cookie.getValue());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // A valid signed token wins; otherwise fall back to the servlet session
+    public String currentUserId(HttpServletRequest request) {
+        Optional<SessionToken> token = fromRequest(request);
+        if (token.isPresent()) {
+            return token.get().userId();
+        }
+        HttpSession session = request.getSession(false);
+        return session == null ? null : (String) session.getAttribute("userId");
+    }
+
+    public ResponseCookie cookie(String token) {
+        return cookieBuilder(token).maxAge(ttl).build();
+    }
+
+    public ResponseCookie clearCookie() {
+        return cookieBuilder("").maxAge(0).build();
+    }
+
+    private ResponseCookie.ResponseCookieBuilder cookieBuilder(String value) {
+        // The frontend calls us cross-site with credentials, which needs SameSite=None
+        return ResponseCookie.from(COOKIE_NAME, value)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite(secureCookie ? "None" : "Lax")
+                .path("/");
+    }
+
+    public record SessionToken(String userId, String role, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.Authserver.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+// In-memory token buckets keyed by client IP or email. Keys hash to one of a fixed number of stripes,
+// each with its own lock and at most maxKeys / STRIPES buckets. A bucket that has refilled to capacity
+// is no different from a new one, so it is dropped: each stripe files its buckets in a timing wheel by
+// that refill time and sweeps the slots that have come due. A full stripe makes room by dropping the
+// bucket closest to refilling
+public class TokenBucketLimiter {
+
+    private static final int STRIPES = 64;
+    private static final int WHEEL_SLOTS = 64;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long tickNanos;
+    private final int maxKeysPerStripe;
+    private final LongSupplier clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // capacity requests at once, refilled at capacity per refillPeriod
+    public TokenBucketLimiter(int capacity, Duration refillPeriod, int maxKeys) {
+        this(capacity, refillPeriod, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(int capacity, Duration refillPeriod, int maxKeys, LongSupplier clock) {
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (double) refillPeriod.toNanos();
+        // Every bucket refills within refillPeriod of its last use, so one turn of the wheel covers it
+        this.tickNanos = refillPeriod.toNanos() / (WHEEL_SLOTS - 1) + 1;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        this.clock = clock;
+        long now = Math.floorDiv(clock.getAsLong(), tickNanos);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(now);
+        }
+    }
+
+    // Takes a token: 0 if the request may proceed, otherwise the nanoseconds until one is available
+    public long tryAcquire(String key) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            return stripe.tryAcquire(key, now);
+        }
+    }
+
+    // Like tryAcquire, but only looks: the nanoseconds until a token is available, without taking it
+    public long waitTime(String key) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            return stripe.waitTime(key, now);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+        private final String key;
+        private double tokens;
+        private long updated;
+        private long fullTick;
+
+        private Bucket(String key, double tokens, long updated) {
+            this.key = key;
+            this.tokens = tokens;
+            this.updated = updated;
+        }
+    }
+
+    private final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+        private final List<Set<Bucket>> wheel = new ArrayList<>(WHEEL_SLOTS);
+        private long sweptTick;
+
+        private Stripe(long tick) {
+            for (int i = 0; i < WHEEL_SLOTS; i++) {
+                wheel.add(new HashSet<>());
+            }
+            this.sweptTick = tick;
+        }
+
+        private long tryAcquire(String key, long now) {
+            long tick = Math.floorDiv(now, tickNanos);
+            sweep(tick);
+
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxKeysPerStripe) {
+                    evictSoonest(tick);
+                }
+                bucket = new Bucket(key, capacity, now);
+                buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updated) * tokensPerNano);
+                bucket.updated = now;
+            }
+
+            long wait = 0;
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+            } else {
+                wait = (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+            }
+            refile(bucket, now);
+            return wait;
+        }
+
+        private long waitTime(String key, long now) {
+            sweep(Math.floorDiv(now, tickNanos));
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                return 0;
+            }
+            double tokens = Math.min(capacity, bucket.tokens + (now - bucket.updated) * tokensPerNano);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        // Moves the bucket to the slot of the first tick at which it is full again
+        private void refile(Bucket bucket, long now) {
+            long full = now + (long) Math.ceil((capacity - bucket.tokens) / tokensPerNano);
+            long fullTick = Math.floorDiv(full, tickNanos) + 1;
+            if (fullTick != bucket.fullTick) {
+                wheel.get(slot(bucket.fullTick)).remove(bucket);
+                bucket.fullTick = fullTick;
+                wheel.get(slot(fullTick)).add(bucket);
+            }
+        }
+
+        // Visits each slot that came due since the last sweep (each slot at most once after a long idle)
+        private void sweep(long tick) {
+            long until = Math.min(tick, sweptTick + WHEEL_SLOTS);
+            for (long t = sweptTick + 1; t <= until; t++) {
+                Iterator<Bucket> due = wheel.get(slot(t)).iterator();
+                while (due.hasNext()) {
+                    Bucket bucket = due.next();
+                    // Slots are shared by ticks a full turn apart
+                    if (bucket.fullTick <= tick) {
+                        due.remove();
+                        buckets.remove(bucket.key);
+                    }
+                }
+            }
+            sweptTick = Math.max(sweptTick, tick);
+        }
+
+        private void evictSoonest(long tick) {
+            for (int i = 1; i <= WHEEL_SLOTS; i++) {
+                Set<Bucket> slot = wheel.get(slot(tick + i));
+                if (!slot.isEmpty()) {
+                    Bucket bucket = slot.iterator().next();
+                    slot.remove(bucket);
+                    buckets.remove(bucket.key);
+                    return;
+                }
+            }
+        }
+
+        private int slot(long tick) {
+            return (int) Math.floorMod(tick, (long) WHEEL_SLOTS);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.Authserver.service;
+
+import com.example.Authserver.entity.User;
+import com.example.Authserver.repository.DuplicateUserException;
+import com.example.Authserver.repository.UserRepository;
+import com.example.Authserver.security.PasswordHasher;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Provisions course rosters: rows are parsed as they arrive and handled in chunks (one batched
+// existence lookup, parallel hashing, one batched commit), with one NDJSON result line per row.
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${auth.import.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${auth.import.max-rows:20000}")
+    private int maxRows;
+
+    @Autowired
+    public UserImportService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                             PasswordHasher passwordHasher, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.objectMapper = objectMapper;
+    }
+
+    // CSV needs a header row naming the columns (email, fullName, password, role, studentId);
+    // NDJSON rows are objects with the same keys. Only email and fullName are required
+    public void importUsers(InputStream roster, boolean ndjson, OutputStream results) throws IOException {
+        JsonGenerator out = objectMapper.getFactory().createGenerator(results);
+        out.setRootValueSeparator(null);
+        Map<String, Integer> summary = new LinkedHashMap<>();
+        Set<String> seenEmails = new HashSet<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(roster, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            List<Row> chunk = new ArrayList<>();
+            int lineNumber = 0;
+            int rows = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!ndjson && header == null) {
+                    header = parseCsvLine(line).stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+                    continue;
+                }
+                if (++rows > maxRows) {
+                    writeResult(out, summary, new Result(lineNumber, null, "invalid", null,
+                            "Import is limited to " + maxRows + " rows; the rest was not read"));
+                    break;
+                }
+
+                chunk.add(ndjson ? parseJsonRow(lineNumber, line) : parseCsvRow(lineNumber, header, line));
+                if (chunk.size() >= chunkSize) {
+                    for (Result result : importChunk(chunk, seenEmails)) {
+                        writeResult(out, summary, result);
+                    }
+                    chunk.clear();
+                }
+            }
+            for (Result result : importChunk(chunk, seenEmails)) {
+                writeResult(out, summary, result);
+            }
+        } catch (RuntimeException e) {
+            // Rows already reported stay committed; tell the client where the import stopped
+            log.error("User import failed", e);
+            Map<String, Object> failure = new LinkedHashMap<>();
+            failure.put("error", "Import aborted, later rows were not processed");
+            out.writeObject(failure);
+            out.writeRaw('\n');
+        }
+
+        out.writeObject(Map.of("summary", summary));
+        out.writeRaw('\n');
+        out.flush();
+    }
+
+    private List<Result> importChunk(List<Row> rows, Set<String> seenEmails) {
+        Result[] results = new Result[rows.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            String problem = row.problem();
+            if (problem != null) {
+                results[i] = new Result(row.line(), row.email(), "invalid", null, problem);
+            } else if (!seenEmails.add(UserRepository.normalizeEmail(row.email()))) {
+                results[i] = new Result(row.line(), row.email(), "duplicate", null, "Email appears earlier in the roster");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // One batched lookup for the whole chunk instead of an existence query per row
+        Map<String, User> existing = userRepository.findAllByEmails(
+                candidates.stream().map(i -> rows.get(i).email()).toList()).join();
+
+        List<CompletableFuture<User>> pending = new ArrayList<>();
+        List<Integer> pendingRows = new ArrayList<>();
+        for (int i : candidates) {
+            Row row = rows.get(i);
+            User user = existing.get(row.email());
+            if (user != null) {
+                results[i] = new Result(row.line(), row.email(), "exists", user.getId(), null);
+                continue;
+            }
+            CompletableFuture<String> hash = row.password() == null ?
+                    CompletableFuture.completedFuture(null) :
+                    passwordHasher.submitOrRun("import", () -> passwordEncoder.encode(row.password()));
+            pending.add(hash.thenApply(row::toUser));
+            pendingRows.add(i);
+        }
+
+        List<User> users = pending.stream().map(CompletableFuture::join).toList();
+        if (!users.isEmpty()) {
+            try {
+                userRepository.createAll(users).join();
+                for (int n = 0; n < users.size(); n++) {
+                    Row row = rows.get(pendingRows.get(n));
+                    results[pendingRows.get(n)] = new Result(row.line(), row.email(), "created", users.get(n).getId(), null);
+                }
+            } catch (CompletionException e) {
+                // Someone registered one of these emails since the lookup; find out which one per user
+                log.warn("Batched import of {} users failed, retrying individually", users.size(), e);
+                for (int n = 0; n < users.size(); n++) {
+                    results[pendingRows.get(n)] = createOne(rows.get(pendingRows.get(n)), users.get(n));
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    private Result createOne(Row row, User user) {
+        try {
+            userRepository.create(user).join();
+            return new Result(row.line(), row.email(), "created", user.getId(), null);
+        } catch (CompletionException e) {
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof DuplicateUserException duplicate) {
+                    return new Result(row.line(), row.email(), "exists", null, duplicate.getMessage());
+                }
+            }
+            log.error("Importing user {} failed", row.email(), e);
+            return new Result(row.line(), row.email(), "failed", null, "Could not save user");
+        }
+    }
+
+    private void writeResult(JsonGenerator out, Map<String, Integer> summary, Result result) throws IOException {
+        summary.merge(result.status(), 1, Integer::sum);
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("line", result.line());
+        if (result.email() != null) {
+            line.put("email", result.email());
+        }
+        line.put("status", result.status());
+        if (result.userId() != null) {
+            line.put("userId", result.userId());
+        }
+        if (result.error() != null) {
+            line.put("error", result.error());
+        }
+        out.writeObject(line);
+        out.writeRaw('\n');
+        // Push each chunk's results to the client as soon as they are known
+        out.flush();
+    }
+
+    private Row parseJsonRow(int line, String json) {
+        try {
+            Map<?, ?> fields = objectMapper.readValue(json, Map.class);
+            Map<String, String> row = new LinkedHashMap<>();
+            fields.forEach((key, value) -> {
+                if (value != null) {
+                    row.put(key.toString().toLowerCase(Locale.ROOT), value.toString());
+                }
+            });
+            return Row.of(line, row);
+        } catch (IOException e) {
+            return Row.invalid(line, "Malformed JSON");
+        }
+    }
+
+    private static Row parseCsvRow(int line, List<String> header, String csv) {
+        if (!header.contains("email") || !header.contains("fullname")) {
+            return Row.invalid(line, "CSV header must name the email and fullName columns");
+        }
+        List<String> values = parseCsvLine(csv);
+        if (values == null || values.size() > header.size()) {
+            return Row.invalid(line, "Malformed CSV row");
+        }
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            row.put(header.get(i), values.get(i));
+        }
+        return Row.of(line, row);
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and "" escapes.
+    // Returns null for an unterminated quote
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private record Row(int line, String email, String fullName, String password, String role,
+                       String studentId, String problem) {
+
+        static Row invalid(int line, String problem) {
+            return new Row(line, null, null, null, null, null, problem);
+        }
+
+        static Row of(int line, Map<String, String> fields) {
+            String email = blankToNull(fields.get("email"));
+            String fullName = blankToNull(fields.get("fullname"));
+            String role = blankToNull(fields.get("role"));
+            if (role != null) {
+                role = role.toLowerCase(Locale.ROOT);
+            }
+
+            String problem = null;
+            if (email == null || !email.contains("@")) {
+                problem = "A valid email is required";
+            } else if (fullName == null) {
+                problem = "fullName is required";
+            } else if (role != null && !"student".equals(role) && !"professor".equals(role)) {
+                problem = "Role must be either 'student' or 'professor'";
+            }
+            return new Row(line, email == null ? null : email.trim(), fullName, blankToNull(fields.get("password")),
+                    role, blankToNull(fields.get("studentid")), problem);
+        }
+
+        User toUser(String encodedPassword) {
+            return User.builder()
+                    .id(UUID.randomUUID().toString())
+                    .email(email)
+                    .fullName(fullName)
+                    .password(encodedPassword)
+                    .role(role)
+                    .studentId(!"student".equals(role) ? null :
+                            studentId != null ? studentId : "STUDENT-" + UUID.randomUUID().toString().substring(0, 8))
+                    .roleAssigned(role != null)
+                    .disabled(false)
+                    .build();
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+    }
+
+    private record Result(int line, String email, String status, String userId, String error) {
+    }
+}
@@ -1,101 +1,205 @@
 package com.example.Authserver.service;
 
 import com.example.Authserver.entity.User;
+import com.example.Authserver.observability.AsyncObservations;
+import com.example.Authserver.repository.DuplicateUserException;
 import com.example.Authserver.repository.UserRepository;
+import com.example.Authserver.security.PasswordHasher;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final ObservationRegistry observationRegistry;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       PasswordHasher passwordHasher, ObservationRegistry observationRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.observationRegistry = observationRegistry;
     }
 
     public User registerUser(String email, String password, String fullName) throws ExecutionException, InterruptedException {
-        // Check if email is already registered
-        if (userRepository.existsByEmail(email)) {
-            throw new RuntimeException("Email already registered");
-        }
-
-        // Create new user
-        User user = User.builder()
-                .id(UUID.randomUUID().toString())
-                .email(email)
-                .fullName(fullName)
-                .password(passwordEncoder.encode(password))
-                .roleAssigned(false)
-                .disabled(false)
-                .build();
+        return registerUserAsync(email, password, fullName).get();
+    }
 
-        return userRepository.save(user);
+    public CompletableFuture<User> registerUserAsync(String email, String password, String fullName) {
+        // No separate existence check: the create transaction rejects taken emails in the same round trip
+        return observed("register", () -> passwordHasher.submit("register", () -> passwordEncoder.encode(password))
+                .thenCompose(encodedPassword -> {
+                    // Create new user
+                    User user = User.builder()
+                            .id(UUID.randomUUID().toString())
+                            .email(email)
+                            .fullName(fullName)
+                            .password(encodedPassword)
+                            .roleAssigned(false)
+                            .disabled(false)
+                            .build();
+
+                    // Fails with DuplicateUserException if the email is already registered
+                    return userRepository.create(user);
+                }));
     }
 
     public User findOrCreateGoogleUser(String googleId, String email, String fullName) throws ExecutionException, InterruptedException {
-        // Try to find by Google ID
-        Optional<User> existingUserByGoogleId = userRepository.findByGoogleId(googleId);
-        if (existingUserByGoogleId.isPresent()) {
-            return existingUserByGoogleId.get();
-        }
+        return findOrCreateGoogleUserAsync(googleId, email, fullName).get();
+    }
 
-        // Try to find by email
-        Optional<User> existingUserByEmail = userRepository.findByEmail(email);
-        if (existingUserByEmail.isPresent()) {
-            User user = existingUserByEmail.get();
-            // Update Google ID if needed
-            if (user.getGoogleId() == null) {
-                user.setGoogleId(googleId);
-                return userRepository.save(user);
+    public CompletableFuture<User> findOrCreateGoogleUserAsync(String googleId, String email, String fullName) {
+        // Google ID and email are looked up together, preferring the Google ID match
+        return observed("googleSignIn", () -> userRepository.findByGoogleIdOrEmailAsync(googleId, email).thenCompose(existingUser -> {
+            if (existingUser.isPresent()) {
+                return linkIfNeeded(existingUser.get(), googleId);
             }
-            return user;
-        }
 
-        // Create new user with Google info
-        User newUser = User.builder()
-                .id(UUID.randomUUID().toString())
-                .email(email)
-                .fullName(fullName)
-                .googleId(googleId)
-                .roleAssigned(false)
-                .disabled(false)
-                .build();
+            // Create new user with Google info
+            User newUser = User.builder()
+                    .id(UUID.randomUUID().toString())
+                    .email(email)
+                    .fullName(fullName)
+                    .googleId(googleId)
+                    .roleAssigned(false)
+                    .disabled(false)
+                    .build();
+
+            return userRepository.create(newUser);
+        }).exceptionallyCompose(e -> {
+            // A concurrent sign-in for the same account won the race, or the email belongs to a user the
+            // combined lookup cannot match (stored in another case); the pointer lookups find either
+            if (!isDuplicateUser(e)) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return userRepository.findByGoogleIdAsync(googleId)
+                    .thenCompose(byGoogleId -> byGoogleId.isPresent() ?
+                            CompletableFuture.completedFuture(byGoogleId) :
+                            userRepository.findByEmailAsync(email))
+                    .thenCompose(existingUser -> existingUser
+                            .map(user -> linkIfNeeded(user, googleId))
+                            .orElseGet(() -> CompletableFuture.failedFuture(e)));
+        }));
+    }
+
+    private CompletableFuture<User> linkIfNeeded(User user, String googleId) {
+        // Update Google ID if needed
+        if (user.getGoogleId() == null) {
+            return userRepository.linkGoogleId(user, googleId);
+        }
+        return CompletableFuture.completedFuture(user);
+    }
 
-        return userRepository.save(newUser);
+    private static boolean isDuplicateUser(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DuplicateUserException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public User assignRole(String userId, String role, String studentId) throws ExecutionException, InterruptedException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-        // Normalize role
-        role = role.toLowerCase();
-        user.setRole(role);
-        user.setRoleAssigned(true);
-
-        if ("student".equals(role) && studentId != null) {
-            user.setStudentId(studentId);
-        }
+        return assignRoleAsync(userId, role, studentId).get();
+    }
+
+    public CompletableFuture<User> assignRoleAsync(String userId, String role, String studentId) {
+        return observed("assignRole", () -> userRepository.findByIdAsync(userId).thenCompose(userOpt -> {
+            User user = userOpt.orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+            // Normalize role
+            String normalizedRole = role.toLowerCase();
+            user.setRole(normalizedRole);
+            user.setRoleAssigned(true);
+
+            if ("student".equals(normalizedRole) && studentId != null) {
+                user.setStudentId(studentId);
+            }
 
-        return userRepository.save(user);
+            // Bursts (a whole class picking roles) share batched commits; respond once ours is durable
+            return userRepository.saveAsync(user);
+        }));
     }
 
     public Optional<User> findByEmail(String email) throws ExecutionException, InterruptedException {
         return userRepository.findByEmail(email);
     }
 
+    public CompletableFuture<Optional<User>> findByEmailAsync(String email) {
+        return observed("findByEmail", () -> userRepository.findByEmailAsync(email));
+    }
+
     public boolean verifyPassword(User user, String password) {
         return passwordEncoder.matches(password, user.getPassword());
     }
+
+    // Resolves to the user only when the email exists and the password matches
+    public CompletableFuture<Optional<User>> authenticateAsync(String email, String password) {
+        return observed("authenticate", () -> userRepository.findByEmailAsync(email)
+                .thenCompose(userOpt -> userOpt.isEmpty() ?
+                        CompletableFuture.completedFuture(Optional.<User>empty()) :
+                        passwordHasher.submit("login", () -> verifyPassword(userOpt.get(), password))
+                                .thenApply(valid -> {
+                                    if (!valid) {
+                                        return Optional.<User>empty();
+                                    }
+                                    rehashIfNeeded(userOpt.get(), password);
+                                    return userOpt;
+                                })));
+    }
+
+    // Moves hashes with an outdated algorithm or cost to the current settings; only possible while
+    // the plaintext is at hand. Best effort: if the pool is busy the next login tries again
+    private void rehashIfNeeded(User user, String password) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        passwordHasher.submit("rehash", () -> passwordEncoder.encode(password))
+                .thenCompose(encodedPassword -> userRepository.replacePassword(user, encodedPassword));
+    }
+
     public Optional<User> findById(String id) throws ExecutionException, InterruptedException {
         return userRepository.findById(id);
     }
-}
\ No newline at end of file
+
+    public CompletableFuture<Optional<User>> findByIdAsync(String id) {
+        return observed("findById", () -> userRepository.findByIdAsync(id));
+    }
+
+    // Users without their password hash, for callers that only show or authorize them
+    public CompletableFuture<Optional<User>> findProfileByIdAsync(String id) {
+        return observed("findProfileById", () -> userRepository.findProfileByIdAsync(id));
+    }
+
+    public CompletableFuture<Map<String, User>> findProfilesByIdsAsync(Collection<String> ids) {
+        return observed("findProfilesByIds", () -> userRepository.findProfilesByIds(ids));
+    }
+
+    public CompletableFuture<Map<String, User>> findProfilesByEmailsAsync(Collection<String> emails) {
+        return observed("findProfilesByEmails", () -> userRepository.findProfilesByEmails(emails));
+    }
+
+    // auth.user.service covers the whole operation; its password hashing and store round trips are
+    // recorded as child observations (auth.password.hash, user.store)
+    private <T> CompletableFuture<T> observed(String operation, Supplier<CompletableFuture<T>> call) {
+        return AsyncObservations.observe(observationRegistry,
+                Observation.createNotStarted("auth.user.service", observationRegistry)
+                        .contextualName("user-service " + operation)
+                        .lowCardinalityKeyValue("operation", operation),
+                call);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.Authserver.attendance;
+
+import com.example.Authserver.attendance.QrCodeRenderer.Format;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttendanceQrServiceTests {
+
+	private static final Duration ROTATION = Duration.ofSeconds(30);
+
+	private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:10Z"), ZoneOffset.UTC);
+
+	@Test
+	void codesAreAcceptedForTheirWindowAndTheNext() {
+		AttendanceCodes codes = new AttendanceCodes("", ROTATION, clock);
+		String code = codes.issue("CS1660", "lecture-1", codes.currentWindow());
+
+		AttendanceCodes.AttendanceCode verified = codes.verify(code).orElseThrow();
+		assertEquals("CS1660", verified.courseId());
+		assertEquals("lecture-1", verified.sessionId());
+
+		assertTrue(codes.verify(code.substring(0, code.lastIndexOf('.') + 1) + "AAAA").isEmpty());
+		assertTrue(codes.verify(codes.issue("CS1660", "lecture-1", codes.currentWindow() + 1)).isEmpty());
+		assertTrue(codes.verify(codes.issue("CS1660", "lecture-1", codes.currentWindow() - 1)).isPresent());
+		assertTrue(codes.verify(codes.issue("CS1660", "lecture-1", codes.currentWindow() - 2)).isEmpty());
+	}
+
+	@Test
+	void pollsWithinAWindowAreServedFromTheCache() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		AttendanceQrService service = new AttendanceQrService(new AttendanceCodes("", ROTATION, clock), registry,
+				"https://example.com/confirm", ROTATION, Duration.ofSeconds(2), 240, 1 << 20);
+		try {
+			AttendanceQrService.QrImage first = service.current("CS1660", "lecture-1", Format.PNG);
+			for (int i = 0; i < 20; i++) {
+				assertSame(first, service.current("CS1660", "lecture-1", Format.PNG));
+			}
+			AttendanceQrService.QrImage svg = service.current("CS1660", "lecture-1", Format.SVG);
+
+			assertEquals(1, registry.counter("attendance.qr.renders", "format", "png").count());
+			assertEquals(1, registry.counter("attendance.qr.renders", "format", "svg").count());
+			assertEquals((byte) 0x89, first.bytes()[0]);
+			assertEquals("PNG", new String(first.bytes(), 1, 3, StandardCharsets.US_ASCII));
+			assertTrue(new String(svg.bytes(), StandardCharsets.UTF_8).startsWith("<svg"));
+			assertEquals(first.code(), svg.code());
+			assertEquals(Instant.parse("2025-01-01T00:00:30Z"), first.rotatesAt());
+		} finally {
+			service.shutdown();
+		}
+	}
+}
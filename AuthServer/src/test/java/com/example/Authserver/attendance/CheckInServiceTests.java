@@ -0,0 +1,161 @@
+package com.example.Authserver.attendance;
+
+import com.example.Authserver.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckInServiceTests {
+
+	private static final Duration ROTATION = Duration.ofSeconds(30);
+
+	private final AttendanceCodes codes = new AttendanceCodes("", ROTATION, Clock.systemUTC());
+	private final String code = codes.issue("CS1660", "lecture-1", codes.currentWindow());
+
+	private CheckInService service(AttendanceSink sink, int queueCapacity) {
+		return new CheckInService(codes, sink, new SimpleMeterRegistry(), Clock.systemUTC(), queueCapacity, 1, 400,
+				Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofHours(1), 1000, Duration.ofSeconds(5));
+	}
+
+	private static User student(int i) {
+		return User.builder().id("u" + i).fullName("Student " + i).role("student").studentId("S" + i).build();
+	}
+
+	@Test
+	void repeatScansAreAcceptedOnce() {
+		Map<String, AttendanceRecord> written = new ConcurrentHashMap<>();
+		CheckInService service = service(batch -> batch.forEach(r -> written.put(r.documentId(), r)), 100);
+
+		assertEquals(CheckInService.Outcome.RECORDED, service.checkIn(student(1), code).join().outcome());
+		assertEquals(CheckInService.Outcome.DUPLICATE, service.checkIn(student(1), code).join().outcome());
+		assertEquals(CheckInService.Outcome.INVALID_CODE, service.checkIn(student(1), "a1.x.y.z").join().outcome());
+		service.shutdown();
+
+		assertEquals(1, written.size());
+		AttendanceRecord record = written.get("CS1660|lecture-1|u1");
+		assertEquals("Student 1", record.name());
+		assertEquals("u1", record.toDocument().get("authServerId"));
+	}
+
+	@Test
+	void fullQueueRefusesCheckInsUntilTheWriterCatchesUp() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger written = new AtomicInteger();
+		CheckInService service = service(batch -> {
+			writing.countDown();
+			release.await();
+			written.addAndGet(batch.size());
+		}, 2);
+
+		// The writer takes the first record and blocks on it; two more fill the queue
+		CompletableFuture<CheckInService.Result> first = service.checkIn(student(1), code);
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		CompletableFuture<CheckInService.Result> second = service.checkIn(student(2), code);
+		CompletableFuture<CheckInService.Result> third = service.checkIn(student(3), code);
+		assertEquals(CheckInService.Outcome.BUSY, service.checkIn(student(4), code).join().outcome());
+		// Queued is not written, so nothing is acknowledged yet
+		assertFalse(first.isDone() || second.isDone() || third.isDone());
+
+		release.countDown();
+		assertEquals(CheckInService.Outcome.RECORDED, first.join().outcome());
+		assertEquals(CheckInService.Outcome.RECORDED, second.join().outcome());
+		assertEquals(CheckInService.Outcome.RECORDED, third.join().outcome());
+		// A refused check-in was not recorded as seen, so the retry goes through
+		assertEquals(CheckInService.Outcome.RECORDED, service.checkIn(student(4), code).join().outcome());
+		service.shutdown();
+		assertEquals(4, written.get());
+	}
+
+	@Test
+	void failedBatchesAreRetriedUntilWritten() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		CountDownLatch written = new CountDownLatch(1);
+		CheckInService service = service(batch -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new IllegalStateException("unavailable");
+			}
+			assertEquals(List.of("CS1660|lecture-1|u1"), batch.stream().map(AttendanceRecord::documentId).toList());
+			written.countDown();
+		}, 100);
+
+		CompletableFuture<CheckInService.Result> result = service.checkIn(student(1), code);
+
+		assertTrue(written.await(5, TimeUnit.SECONDS));
+		assertEquals(CheckInService.Outcome.RECORDED, result.join().outcome());
+		assertEquals(3, attempts.get());
+		service.shutdown();
+	}
+
+	@Test
+	void rejectedBatchesAreDroppedAndCounted() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		CheckInService service = new CheckInService(codes, new AttendanceSink() {
+			@Override
+			public void write(List<AttendanceRecord> batch) {
+				attempts.incrementAndGet();
+				throw new IllegalArgumentException("invalid document");
+			}
+
+			@Override
+			public boolean isRetryable(Exception error) {
+				return false;
+			}
+		}, meterRegistry, Clock.systemUTC(), 100, 1, 400, Duration.ofMillis(10), Duration.ofMillis(10),
+				Duration.ofHours(1), 1000, Duration.ofSeconds(5));
+
+		assertEquals(CheckInService.Outcome.REJECTED, service.checkIn(student(1), code).join().outcome());
+		service.shutdown();
+
+		assertEquals(1, attempts.get());
+		assertEquals(1, meterRegistry.counter("attendance.write.dropped").count());
+	}
+
+	@Test
+	void rescanAfterARejectedBatchIsAccepted() {
+		AtomicInteger attempts = new AtomicInteger();
+		Map<String, AttendanceRecord> written = new ConcurrentHashMap<>();
+		CheckInService service = service(new AttendanceSink() {
+			@Override
+			public void write(List<AttendanceRecord> batch) {
+				if (attempts.incrementAndGet() == 1) {
+					throw new IllegalArgumentException("invalid document");
+				}
+				batch.forEach(r -> written.put(r.documentId(), r));
+			}
+
+			@Override
+			public boolean isRetryable(Exception error) {
+				return false;
+			}
+		}, 100);
+
+		assertEquals(CheckInService.Outcome.REJECTED, service.checkIn(student(1), code).join().outcome());
+		assertEquals(CheckInService.Outcome.RECORDED, service.checkIn(student(1), code).join().outcome());
+		assertEquals(CheckInService.Outcome.DUPLICATE, service.checkIn(student(1), code).join().outcome());
+		service.shutdown();
+
+		assertEquals(2, attempts.get());
+		assertTrue(written.containsKey("CS1660|lecture-1|u1"));
+	}
+
+	@Test
+	void documentIdsDoNotCollideWhenIdsContainUnderscores() {
+		AttendanceRecord a = new AttendanceRecord("CS_1660", "lecture", "u1", null, null, null, null);
+		AttendanceRecord b = new AttendanceRecord("CS", "1660_lecture", "u1", null, null, null, null);
+
+		assertNotEquals(a.documentId(), b.documentId());
+	}
+}
@@ -0,0 +1,96 @@
+package com.example.Authserver.cache;
+
+import com.example.Authserver.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTests {
+
+	private final UserCache cache = new UserCache(100, Duration.ofMinutes(5));
+
+	private User user(String id, String email, String googleId) {
+		return User.builder().id(id).email(email).googleId(googleId).fullName("Test User").build();
+	}
+
+	@Test
+	void resolvesByAllKeys() {
+		cache.put(user("u1", "a@example.com", "g1"));
+
+		assertEquals("u1", cache.getById("u1").orElseThrow().getId());
+		assertEquals("u1", cache.getByEmail("a@example.com").orElseThrow().getId());
+		assertEquals("u1", cache.getByGoogleId("g1").orElseThrow().getId());
+		assertEquals(3, cache.stats().hits());
+	}
+
+	@Test
+	void emailPointersAreKeyedByTheNormalizedEmail() {
+		cache.put(user("u1", " Mixed.Case@Example.com", null));
+
+		assertEquals("u1", cache.getByEmail("mixed.case@example.com").orElseThrow().getId());
+
+		cache.invalidate("u1");
+		assertTrue(cache.getByEmail("mixed.case@example.com").isEmpty());
+	}
+
+	@Test
+	void invalidateDropsSecondaryKeys() {
+		cache.put(user("u1", "a@example.com", "g1"));
+		cache.invalidate("u1");
+
+		assertTrue(cache.getByEmail("a@example.com").isEmpty());
+		assertTrue(cache.getByGoogleId("g1").isEmpty());
+		assertEquals(1, cache.stats().invalidations());
+		assertEquals(2, cache.stats().misses());
+	}
+
+	@Test
+	void putReplacesStalePointers() {
+		cache.put(user("u1", "old@example.com", null));
+		cache.put(user("u1", "new@example.com", "g1"));
+
+		assertTrue(cache.getByEmail("old@example.com").isEmpty());
+		assertEquals("u1", cache.getByEmail("new@example.com").orElseThrow().getId());
+	}
+
+	@Test
+	void lookupsThatRacedAnInvalidationAreNotCached() {
+		long lookupStarted = cache.version();
+		cache.invalidate("u1");
+		cache.put(user("u1", "a@example.com", null), lookupStarted);
+		cache.putProfile(user("u1", "a@example.com", null), lookupStarted);
+
+		assertTrue(cache.getById("u1").isEmpty());
+		assertTrue(cache.getProfileById("u1").isEmpty());
+
+		cache.put(user("u1", "a@example.com", null), cache.version());
+		assertTrue(cache.getById("u1").isPresent());
+	}
+
+	@Test
+	void returnsDefensiveCopies() {
+		cache.put(user("u1", "a@example.com", null));
+		cache.getById("u1").orElseThrow().setRole("professor");
+
+		assertNull(cache.getById("u1").orElseThrow().getRole());
+	}
+
+	@Test
+	void profilesLeaveOutThePasswordAndGiveWayToWholeUsers() {
+		User withPassword = user("u1", "a@example.com", null);
+		withPassword.setPassword("hash");
+		cache.putProfile(withPassword);
+
+		assertNull(cache.getProfileByEmail("a@example.com").orElseThrow().getPassword());
+		assertTrue(cache.getById("u1").isEmpty());
+
+		cache.put(withPassword);
+		assertEquals("hash", cache.getById("u1").orElseThrow().getPassword());
+		assertNull(cache.getProfileById("u1").orElseThrow().getPassword());
+
+		cache.invalidate("u1");
+		assertTrue(cache.getProfileById("u1").isEmpty());
+	}
+}
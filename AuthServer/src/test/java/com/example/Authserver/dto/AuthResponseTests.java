@@ -0,0 +1,80 @@
+package com.example.Authserver.dto;
+
+import com.example.Authserver.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthResponseTests {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+			.modulesToInstall(new BlackbirdModule())
+			.build();
+	private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+	private final User student = User.builder()
+			.id("u1").email("ada@example.edu").fullName("Ada").role("student").roleAssigned(true).build();
+	private final User newcomer = User.builder()
+			.id("u2").email("bob@example.edu").fullName("Bob").build();
+
+	@Test
+	void bodiesKeepTheShapeEachEndpointHadWithMaps() throws Exception {
+		assertEquals("{\"userId\":\"u1\",\"email\":\"ada@example.edu\",\"fullName\":\"Ada\",\"role\":\"student\"}",
+				objectMapper.writeValueAsString(AuthResponse.signedIn(student)));
+		assertEquals("{\"userId\":\"u2\",\"email\":\"bob@example.edu\",\"fullName\":\"Bob\",\"needsRoleAssignment\":true}",
+				objectMapper.writeValueAsString(AuthResponse.signedIn(newcomer)));
+		assertEquals("{\"userId\":\"u2\",\"email\":\"bob@example.edu\",\"fullName\":\"Bob\",\"roleAssigned\":false,\"needsRoleAssignment\":true}",
+				objectMapper.writeValueAsString(AuthResponse.googleSignedIn(newcomer)));
+		assertEquals("{\"userId\":\"u1\",\"email\":\"ada@example.edu\",\"fullName\":\"Ada\",\"role\":\"student\",\"token\":\"t\"}",
+				objectMapper.writeValueAsString(AuthResponse.signedIn(student).withToken("t")));
+	}
+
+	@Test
+	void statusOfAUserWithoutARoleLeavesTheRoleOut() throws Exception {
+		assertEquals("{\"authenticated\":true,\"userId\":\"u2\",\"email\":\"bob@example.edu\",\"fullName\":\"Bob\",\"roleAssigned\":false}",
+				objectMapper.writeValueAsString(StatusResponse.of(newcomer)));
+		assertEquals("{\"authenticated\":false}", objectMapper.writeValueAsString(StatusResponse.NOT_AUTHENTICATED));
+	}
+
+	@Test
+	void statusEtagFollowsTheBody() throws Exception {
+		String etag = StatusResponse.of(student).etag();
+		assertEquals(etag, StatusResponse.of(User.builder()
+				.id("u1").email("ada@example.edu").fullName("Ada").role("student").roleAssigned(true).password("hash").build()).etag());
+		assertNotEquals(etag, StatusResponse.of(User.builder()
+				.id("u1").email("ada@example.edu").fullName("Ada").role("professor").roleAssigned(true).build()).etag());
+		assertFalse(objectMapper.writeValueAsString(StatusResponse.of(student)).contains("etag"));
+	}
+
+	@Test
+	void requestsAreReadAndValidated() throws Exception {
+		RoleRequest role = objectMapper.readValue("{\"userId\":\"u2\",\"role\":\"Professor\"}", RoleRequest.class);
+		assertTrue(validator.validate(role).isEmpty());
+
+		Set<ConstraintViolation<RoleRequest>> badRole = validator.validate(new RoleRequest("u2", "admin", null));
+		assertEquals("Role must be either 'student' or 'professor'", badRole.iterator().next().getMessage());
+
+		Set<ConstraintViolation<LoginRequest>> missing = validator.validate(
+				objectMapper.readValue("{\"email\":\"ada@example.edu\"}", LoginRequest.class));
+		assertEquals("Email and password are required", missing.iterator().next().getMessage());
+
+		BatchGetRequest nullIds = objectMapper.readValue("{\"ids\":null,\"emails\":[\"ada@example.edu\"]}", BatchGetRequest.class);
+		assertTrue(nullIds.ids().isEmpty());
+		assertTrue(validator.validate(nullIds).isEmpty());
+
+		Set<ConstraintViolation<BatchGetRequest>> blank = validator.validate(
+				objectMapper.readValue("{\"ids\":[\"u1\",null]}", BatchGetRequest.class));
+		assertEquals("Ids and emails must not be blank", blank.iterator().next().getMessage());
+	}
+}
@@ -0,0 +1,118 @@
+package com.example.Authserver.events;
+
+import com.example.Authserver.cache.UserCache;
+import com.example.Authserver.entity.User;
+import com.example.Authserver.repository.LocalUserStore;
+import com.example.Authserver.repository.UserChange;
+import com.example.Authserver.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserChangeFeedTests {
+
+	private static final Pattern EVENT = Pattern.compile("id:(\\S+)\\nevent:(\\S+)\\ndata:(.*)\\n");
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	private final UserRepository repository;
+	private final UserChangeFeed feed;
+
+	UserChangeFeedTests() throws Exception {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		repository = new UserRepository(new LocalUserStore(new ObjectMapper(), "", false, 10_000),
+				new UserCache(100, Duration.ofMinutes(5)), meterRegistry, ObservationRegistry.NOOP);
+		// Deliveries only happen when the test asks for them
+		feed = new UserChangeFeed(repository, meterRegistry, 100, 10, Duration.ofHours(1), Duration.ofHours(1),
+				Duration.ofHours(1));
+	}
+
+	@AfterEach
+	void shutdown() {
+		feed.shutdown();
+	}
+
+	@Test
+	void rapidChangesReachSubscribersOnceInTheirFinalState() throws Exception {
+		User user = repository.create(User.builder().id("u1").email("ann@pitt.edu").fullName("Ann").build()).get();
+		RecordingEmitter subscriber = new RecordingEmitter();
+		feed.subscribe(null, subscriber);
+
+		for (String role : List.of("student", "professor", "student")) {
+			user.setRole(role);
+			repository.saveAsync(user).get();
+		}
+		// The store's listener repeating the last write changes nothing
+		feed.publish(new UserChange("u1", new User(user)));
+		feed.deliverNow();
+
+		List<Event> events = subscriber.events();
+		assertEquals(1, events.size());
+		assertEquals("user", events.get(0).name());
+		assertTrue(events.get(0).data().contains("\"role\":\"student\""));
+		assertFalse(events.get(0).data().contains("password"));
+
+		// Resuming from that event only replays what came after it
+		user.setDisabled(true);
+		repository.saveAsync(user).get();
+		RecordingEmitter resumed = new RecordingEmitter();
+		feed.subscribe(events.get(0).id(), resumed);
+		feed.deliverNow();
+
+		assertEquals(1, resumed.events().size());
+		assertTrue(resumed.events().get(0).data().contains("\"disabled\":true"));
+	}
+
+	@Test
+	void subscribersThatCannotResumeAreReset() throws Exception {
+		RecordingEmitter foreign = new RecordingEmitter();
+		feed.subscribe("otherinstance-7", foreign);
+		RecordingEmitter current = new RecordingEmitter();
+		feed.subscribe(null, current);
+		feed.deliverNow();
+
+		assertEquals(List.of("reset"), foreign.events().stream().map(Event::name).toList());
+		assertTrue(current.events().isEmpty());
+
+		// Missed store notifications invalidate every subscriber's copy
+		feed.reset();
+		feed.deliverNow();
+		assertEquals(List.of("reset"), current.events().stream().map(Event::name).toList());
+	}
+
+	private record Event(String id, String name, String data) {
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final StringBuilder sent = new StringBuilder();
+
+		// Event data is written as JSON, as the message converters would
+		@Override
+		public synchronized void send(SseEventBuilder builder) throws IOException {
+			for (DataWithMediaType part : builder.build()) {
+				sent.append(part.getData() instanceof String text ? text : JSON.writeValueAsString(part.getData()));
+			}
+		}
+
+		private synchronized List<Event> events() {
+			List<Event> events = new ArrayList<>();
+			Matcher matcher = EVENT.matcher(sent);
+			while (matcher.find()) {
+				events.add(new Event(matcher.group(1), matcher.group(2), matcher.group(3)));
+			}
+			return events;
+		}
+	}
+}
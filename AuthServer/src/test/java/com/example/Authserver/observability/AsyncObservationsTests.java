@@ -0,0 +1,82 @@
+package com.example.Authserver.observability;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncObservationsTests {
+
+	private final List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+	private final ObservationRegistry registry = ObservationRegistry.create();
+
+	AsyncObservationsTests() {
+		registry.observationConfig().observationHandler(new ObservationHandler<>() {
+			@Override
+			public void onStop(Observation.Context context) {
+				stopped.add(context);
+			}
+
+			@Override
+			public boolean supportsContext(Observation.Context context) {
+				return true;
+			}
+		});
+	}
+
+	@Test
+	void stagesChainedByTheCallerRunInTheCallersObservation() throws Exception {
+		ScheduledExecutorService otherThread = Executors.newSingleThreadScheduledExecutor();
+		try {
+			Observation request = Observation.start("request", registry);
+			AtomicReference<Observation> seenByStage = new AtomicReference<>();
+			CompletableFuture<String> result;
+			try (Observation.Scope scope = request.openScope()) {
+				result = AsyncObservations.observe(registry, Observation.createNotStarted("call", registry), () -> {
+					CompletableFuture<String> later = new CompletableFuture<>();
+					otherThread.schedule(() -> later.complete("done"), 50, TimeUnit.MILLISECONDS);
+					return later;
+				}).thenApply(value -> {
+					seenByStage.set(registry.getCurrentObservation());
+					return value;
+				});
+			}
+
+			assertEquals("done", result.get(5, TimeUnit.SECONDS));
+			assertSame(request, seenByStage.get());
+			Observation.Context call = stopped.stream()
+					.filter(context -> "call".equals(context.getName()))
+					.findFirst()
+					.orElseThrow();
+			assertNotNull(call.getParentObservation());
+			assertEquals("request", call.getParentObservation().getContextView().getName());
+			request.stop();
+		} finally {
+			otherThread.shutdownNow();
+		}
+	}
+
+	@Test
+	void failuresAreRecordedOnTheObservation() {
+		CompletableFuture<Object> result = AsyncObservations.observe(registry,
+				Observation.createNotStarted("call", registry),
+				() -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+		assertThrows(Exception.class, result::join);
+		assertEquals(1, stopped.size());
+		assertEquals(IllegalStateException.class, stopped.get(0).getError().getClass());
+	}
+}
@@ -0,0 +1,161 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.AlreadyExistsException;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.Filter;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Round trips per flow against a mocked client; UserRoundTripBenchmarkTests measures them for real
+class FirestoreUserStoreTests {
+
+	private Firestore firestore;
+	private WriteBatch batch;
+	private Query query;
+	private SimpleMeterRegistry meterRegistry;
+	private FirestoreUserStore store;
+
+	@BeforeEach
+	void setUp() {
+		firestore = mock(Firestore.class);
+		for (String name : List.of("users", "users_by_email", "users_by_google")) {
+			CollectionReference collection = mock(CollectionReference.class);
+			when(collection.document(anyString())).thenAnswer(call -> mock(DocumentReference.class));
+			when(firestore.collection(name)).thenReturn(collection);
+		}
+		query = mock(Query.class);
+		when(firestore.collection("users").where(any(Filter.class))).thenReturn(query);
+		when(query.limit(anyInt())).thenReturn(query);
+		batch = mock(WriteBatch.class);
+		when(firestore.batch()).thenReturn(batch);
+
+		meterRegistry = new SimpleMeterRegistry();
+		store = new FirestoreUserStore(firestore, mock(UserWriteBatcher.class), new MockEnvironment(), meterRegistry);
+		ReflectionTestUtils.setField(store, "queryFallback", false);
+	}
+
+	private static QueryDocumentSnapshot document(User user) {
+		Map<String, Object> fields = UserCodec.encode(user);
+		QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+		when(doc.getId()).thenReturn(user.getId());
+		when(doc.getString(anyString())).thenAnswer(call -> (String) fields.get(call.<String>getArgument(0)));
+		when(doc.getBoolean(anyString())).thenAnswer(call -> (Boolean) fields.get(call.<String>getArgument(0)));
+		return doc;
+	}
+
+	private void queryReturns(User... users) {
+		QuerySnapshot snapshot = mock(QuerySnapshot.class);
+		List<QueryDocumentSnapshot> docs = Arrays.stream(users).map(FirestoreUserStoreTests::document).toList();
+		when(snapshot.getDocuments()).thenReturn(docs);
+		when(snapshot.isEmpty()).thenReturn(docs.isEmpty());
+		when(query.get()).thenReturn(ApiFutures.immediateFuture(snapshot));
+	}
+
+	private long roundTrips() {
+		return (long) meterRegistry.find("user.repository.round.trips").counters().stream()
+				.mapToDouble(Counter::count)
+				.sum();
+	}
+
+	@Test
+	void createIsOneCommitGuardedByThePointers() throws Exception {
+		when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+
+		store.create(User.builder().id("u1").email("Ada@example.edu").googleId("g1").build()).get();
+
+		verify(batch, times(2)).create(any(DocumentReference.class), anyMap());
+		assertEquals(1, roundTrips());
+	}
+
+	@Test
+	void takenPointerFailsTheCreate() {
+		when(batch.commit()).thenReturn(ApiFutures.immediateFailedFuture(new AlreadyExistsException(
+				new RuntimeException("exists"), GrpcStatusCode.of(Status.Code.ALREADY_EXISTS), false)));
+
+		ExecutionException error = assertThrows(ExecutionException.class,
+				() -> store.create(User.builder().id("u1").email("ada@example.edu").build()).get());
+		assertInstanceOf(DuplicateUserException.class, error.getCause());
+	}
+
+	@Test
+	void queryFallbackChecksUnindexedUsersFirst() throws Exception {
+		ReflectionTestUtils.setField(store, "queryFallback", true);
+		queryReturns(User.builder().id("legacy").email("ada@example.edu").build());
+
+		ExecutionException error = assertThrows(ExecutionException.class,
+				() -> store.create(User.builder().id("u1").email("ada@example.edu").build()).get());
+		assertInstanceOf(DuplicateUserException.class, error.getCause());
+		verify(batch, never()).commit();
+	}
+
+	@Test
+	void googleLookupIsOneQueryPreferringTheGoogleIdMatch() throws Exception {
+		queryReturns(User.builder().id("by-email").email("ada@example.edu").build(),
+				User.builder().id("by-google").email("other@example.edu").googleId("g1").build());
+
+		assertEquals("by-google", store.findByGoogleIdOrEmail("g1", "ada@example.edu").get().orElseThrow().getId());
+		assertEquals(1, roundTrips());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void changeListenerWatchesRecentWritesOnlyAndReportsNewUsers() {
+		CollectionReference users = firestore.collection("users");
+		Query recentlyWritten = mock(Query.class);
+		when(users.whereGreaterThan(eq("updatedAt"), any())).thenReturn(recentlyWritten);
+		ArgumentCaptor<EventListener<QuerySnapshot>> listener = ArgumentCaptor.forClass(EventListener.class);
+		when(recentlyWritten.addSnapshotListener(listener.capture())).thenReturn(mock(ListenerRegistration.class));
+		List<UserChange> changes = new ArrayList<>();
+
+		store.watchChanges(changes::add, () -> {
+		});
+		DocumentChange added = mock(DocumentChange.class);
+		when(added.getType()).thenReturn(DocumentChange.Type.ADDED);
+		QueryDocumentSnapshot doc = document(User.builder().id("u1").email("ada@example.edu").build());
+		when(added.getDocument()).thenReturn(doc);
+		QuerySnapshot snapshot = mock(QuerySnapshot.class);
+		when(snapshot.getDocumentChanges()).thenReturn(List.of(added));
+		listener.getValue().onEvent(snapshot, null);
+
+		assertEquals("ada@example.edu", changes.get(0).user().getEmail());
+		verify(users, never()).addSnapshotListener(any());
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The store manages its own transactions on worker threads, so the test must not wrap them in one
+@DataJpaTest(properties = {"user.store.type=jpa", "user.store.jpa.poll-interval=50ms"})
+@Import(JpaUserStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaUserStoreTests {
+
+	@Autowired
+	private JpaUserStore store;
+
+	@Test
+	void uniqueIndexesRejectDuplicates() throws Exception {
+		store.create(user("jpa-1", "Ann@Pitt.edu", "g-jpa-1")).get();
+
+		ExecutionException sameEmail = assertThrows(ExecutionException.class,
+				() -> store.create(user("jpa-2", "ann@pitt.edu", null)).get());
+		assertInstanceOf(DuplicateUserException.class, sameEmail.getCause());
+		ExecutionException sameGoogleId = assertThrows(ExecutionException.class,
+				() -> store.linkGoogleId(user("jpa-3", "bob@pitt.edu", null), "g-jpa-1").get());
+		assertInstanceOf(DuplicateUserException.class, sameGoogleId.getCause());
+
+		assertEquals("jpa-1", store.findByGoogleIdOrEmail("g-unknown", "ANN@pitt.edu").get().orElseThrow().getId());
+	}
+
+	@Test
+	void batchedInsertAndLookups() throws Exception {
+		store.createAll(List.of(
+				user("jpa-10", "carol@pitt.edu", null),
+				user("jpa-11", "dave@pitt.edu", "g-jpa-11"))).get();
+
+		Map<String, User> byEmail = store.findAllByEmails(List.of("Carol@pitt.edu", "nobody@pitt.edu")).get();
+		assertEquals(1, byEmail.size());
+		assertEquals("jpa-10", byEmail.get("Carol@pitt.edu").getId());
+		assertEquals(2, store.findAllByIds(List.of("jpa-10", "jpa-11", "jpa-404")).get().size());
+
+		User updated = store.findById("jpa-10").get().orElseThrow();
+		updated.setEmail("carol.lee@pitt.edu");
+		store.save(updated).get();
+		assertTrue(store.findByEmail("carol.lee@pitt.edu").get().isPresent());
+		assertTrue(store.findByEmail("carol@pitt.edu").get().isEmpty());
+	}
+
+	@Test
+	void replacePasswordComparesTheStoredHash() throws Exception {
+		User user = user("jpa-20", "erin@pitt.edu", null);
+		user.setPassword("old");
+		store.create(user).get();
+
+		assertTrue(store.replacePassword("jpa-20", "old", "new").get());
+		assertFalse(store.replacePassword("jpa-20", "old", "newer").get());
+		assertEquals("new", store.findById("jpa-20").get().orElseThrow().getPassword());
+	}
+
+	@Test
+	void pollingReportsEachWriteOnce() throws Exception {
+		BlockingQueue<UserChange> changes = new LinkedBlockingQueue<>();
+		try (AutoCloseable watch = store.watchChanges(changes::add, () -> {
+		})) {
+			store.create(user("jpa-30", "fay@pitt.edu", null)).get();
+			assertEquals("User jpa-30", next(changes, "jpa-30").user().getFullName());
+
+			User renamed = store.findById("jpa-30").get().orElseThrow();
+			renamed.setFullName("Fay Lee");
+			store.save(renamed).get();
+			assertEquals("Fay Lee", next(changes, "jpa-30").user().getFullName());
+
+			// Later polls look back over the same rows without reporting them again
+			Thread.sleep(300);
+			assertTrue(changes.stream().noneMatch(change -> change.id().equals("jpa-30")));
+		}
+	}
+
+	private static UserChange next(BlockingQueue<UserChange> changes, String id) throws InterruptedException {
+		for (UserChange change; (change = changes.poll(5, TimeUnit.SECONDS)) != null; ) {
+			if (change.id().equals(id)) {
+				return change;
+			}
+		}
+		throw new AssertionError("No change reported for " + id);
+	}
+
+	private static User user(String id, String email, String googleId) {
+		return User.builder().id(id).email(email).fullName("User " + id).googleId(googleId).build();
+	}
+}
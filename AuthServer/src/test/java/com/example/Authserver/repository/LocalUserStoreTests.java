@@ -0,0 +1,120 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalUserStoreTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void emailAndGoogleIdAreUnique() throws Exception {
+		LocalUserStore store = store("");
+		store.create(user("1", "Ann@Pitt.edu", "g-1")).get();
+
+		ExecutionException sameEmail = assertThrows(ExecutionException.class,
+				() -> store.create(user("2", "ann@pitt.edu", null)).get());
+		assertInstanceOf(DuplicateUserException.class, sameEmail.getCause());
+		assertThrows(ExecutionException.class, () -> store.create(user("3", "bob@pitt.edu", "g-1")).get());
+		assertEquals("1", store.findByEmail("ANN@pitt.edu").get().orElseThrow().getId());
+	}
+
+	@Test
+	void createAllIsAllOrNothing() throws Exception {
+		LocalUserStore store = store("");
+		store.create(user("1", "ann@pitt.edu", null)).get();
+
+		assertThrows(ExecutionException.class, () -> store.createAll(List.of(
+				user("2", "bob@pitt.edu", null),
+				user("3", "ann@pitt.edu", null))).get());
+		assertFalse(store.existsByEmail("bob@pitt.edu").get());
+	}
+
+	@Test
+	void linkingAStaleCopyKeepsNewerChanges() throws Exception {
+		LocalUserStore store = store("");
+		User stale = user("1", "ann@pitt.edu", null);
+		store.create(stale).get();
+		User promoted = user("1", "ann@pitt.edu", null);
+		promoted.setRole("professor");
+		store.save(promoted).get();
+
+		User linked = store.linkGoogleId(stale, "g-1").get();
+		assertEquals("professor", linked.getRole());
+		assertEquals("g-1", store.findById("1").get().orElseThrow().getGoogleId());
+		assertEquals("professor", store.findById("1").get().orElseThrow().getRole());
+	}
+
+	@Test
+	void replacePasswordOnlyTouchesAnUnchangedHash() throws Exception {
+		LocalUserStore store = store("");
+		User user = user("1", "ann@pitt.edu", null);
+		user.setPassword("old");
+		store.create(user).get();
+		User promoted = new User(user);
+		promoted.setRole("professor");
+		store.save(promoted).get();
+
+		assertTrue(store.replacePassword("1", "old", "new").get());
+		assertEquals("professor", store.findById("1").get().orElseThrow().getRole());
+		assertEquals("new", store.findById("1").get().orElseThrow().getPassword());
+		assertFalse(store.replacePassword("1", "old", "newer").get());
+	}
+
+	@Test
+	void saveMovesIndexEntries() throws Exception {
+		LocalUserStore store = store("");
+		store.create(user("1", "ann@pitt.edu", null)).get();
+		store.save(user("1", "ann.lee@pitt.edu", null)).get();
+
+		assertFalse(store.findByEmail("ann@pitt.edu").get().isPresent());
+		assertTrue(store.findByEmail("ann.lee@pitt.edu").get().isPresent());
+	}
+
+	@Test
+	void recoversFromSnapshotAndLog() throws Exception {
+		LocalUserStore store = store(directory.toString());
+		store.create(user("1", "ann@pitt.edu", null)).get();
+		store.create(user("2", "bob@pitt.edu", "g-2")).get();
+		store.close();
+
+		// One more write after the shutdown snapshot, then a crash that tears the next record
+		LocalUserStore reopened = store(directory.toString());
+		User updated = user("1", "ann@pitt.edu", null);
+		updated.setRole("professor");
+		reopened.save(updated).get();
+		Files.writeString(directory.resolve("users.wal"), "{\"id\":\"3\",\"ema", StandardCharsets.UTF_8,
+				StandardOpenOption.APPEND);
+
+		LocalUserStore recovered = store(directory.toString());
+		assertEquals(2, recovered.size());
+		assertEquals("professor", recovered.findById("1").get().orElseThrow().getRole());
+		assertEquals("2", recovered.findByGoogleId("g-2").get().orElseThrow().getId());
+	}
+
+	private LocalUserStore store(String directory) throws Exception {
+		return new LocalUserStore(objectMapper, directory, false, 10_000);
+	}
+
+	private static User user(String id, String email, String googleId) {
+		return User.builder().id(id).email(email).fullName("User " + id).googleId(googleId).build();
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.entity.User;
+import com.google.cloud.firestore.DocumentSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserCodecTests {
+
+	private final User user = User.builder()
+			.id("u1").email("ada@example.edu").fullName("Ada").role("student").studentId("s1")
+			.password("hash").roleAssigned(true).build();
+
+	// Answers like a snapshot of the given fields; absent fields read as null
+	private static DocumentSnapshot snapshot(String id, Map<String, Object> fields) {
+		DocumentSnapshot doc = mock(DocumentSnapshot.class);
+		when(doc.getId()).thenReturn(id);
+		when(doc.getString(anyString())).thenAnswer(call -> (String) fields.get(call.<String>getArgument(0)));
+		when(doc.getBoolean(anyString())).thenAnswer(call -> (Boolean) fields.get(call.<String>getArgument(0)));
+		return doc;
+	}
+
+	@Test
+	void roundTripsEveryField() {
+		Map<String, Object> fields = UserCodec.encode(user);
+		assertEquals(9, fields.size());
+
+		User decoded = UserCodec.decode(snapshot("u1", fields));
+		assertEquals(UserCodec.encode(user), UserCodec.encode(decoded));
+	}
+
+	@Test
+	void profilesNeverCarryThePassword() {
+		assertFalse(Arrays.asList(UserCodec.PROFILE_FIELDS).contains("password"));
+
+		Map<String, Object> projected = UserCodec.encode(user);
+		projected.keySet().retainAll(Arrays.asList(UserCodec.PROFILE_FIELDS));
+		User profile = UserCodec.decode(snapshot("u1", projected));
+		assertNull(profile.getPassword());
+		assertEquals(UserCodec.encode(user.withoutPassword()), UserCodec.encode(profile));
+	}
+}
@@ -0,0 +1,166 @@
+package com.example.Authserver.repository;
+
+import com.example.Authserver.cache.UserCache;
+import com.example.Authserver.entity.User;
+import com.example.Authserver.security.PasswordHasher;
+import com.example.Authserver.service.UserService;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Counts Firestore round trips per auth flow with a cold cache, against replays of the query-based
+// flows this repository used to run, counted by the same meter. Start the emulator and run with:
+// FIRESTORE_EMULATOR_HOST=localhost:8080 mvn test -Dtest=UserRoundTripBenchmarkTests
+@EnabledIfEnvironmentVariable(named = "FIRESTORE_EMULATOR_HOST", matches = ".+")
+class UserRoundTripBenchmarkTests {
+
+	private Firestore firestore;
+	private SimpleMeterRegistry meterRegistry;
+	private UserCache userCache;
+	private FirestoreUserStore store;
+	private UserWriteBatcher writeBatcher;
+	private UserRepository userRepository;
+	private UserService userService;
+	private PasswordHasher passwordHasher;
+
+	@BeforeEach
+	void setUp() {
+		firestore = FirestoreOptions.newBuilder()
+				.setProjectId("demo-auth-benchmark")
+				.setEmulatorHost(System.getenv("FIRESTORE_EMULATOR_HOST"))
+				.build()
+				.getService();
+		meterRegistry = new SimpleMeterRegistry();
+		userCache = new UserCache(1000, Duration.ofMinutes(5));
+		writeBatcher = new UserWriteBatcher(firestore, meterRegistry, Duration.ofMillis(20), 150);
+		store = new FirestoreUserStore(firestore, writeBatcher, new MockEnvironment(), meterRegistry);
+		ReflectionTestUtils.setField(store, "batchChunkSize", 100);
+		ReflectionTestUtils.setField(store, "queryFallback", false);
+		userRepository = new UserRepository(store, userCache, meterRegistry, ObservationRegistry.NOOP);
+		passwordHasher = new PasswordHasher(meterRegistry, ObservationRegistry.NOOP, 2, 64, Duration.ofSeconds(1));
+		userService = new UserService(userRepository, new BCryptPasswordEncoder(4), passwordHasher, ObservationRegistry.NOOP);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		ReflectionTestUtils.invokeMethod(passwordHasher, "shutdown");
+		writeBatcher.shutdown();
+		firestore.close();
+	}
+
+	@Test
+	void noFlowTakesMoreRoundTripsThanBefore() throws Exception {
+		long legacyRegister = count(() -> legacyRegister(unique("register") + "@example.com"));
+		long register = count(() -> userService.registerUserAsync(unique("register") + "@example.com", "pw", "Test User"));
+		assertEquals(3, legacyRegister, "2 email queries + set");
+		assertEquals(1, register, "one commit creating the user and its pointer");
+
+		long legacySignUp = count(() -> legacyGoogleSignIn(unique("google"), unique("google") + "@example.com"));
+		String googleId = unique("google");
+		String googleEmail = unique("google") + "@example.com";
+		long signUp = count(() -> userService.findOrCreateGoogleUserAsync(googleId, googleEmail, "Test User"));
+		assertEquals(3, legacySignUp, "googleId query + email query + set");
+		assertEquals(2, signUp, "combined query + commit");
+
+		userCache.invalidateAll();
+		long legacySignIn = count(() -> legacyGoogleSignIn(googleId, googleEmail));
+		long signIn = count(() -> userService.findOrCreateGoogleUserAsync(googleId, googleEmail, "Test User"));
+		assertEquals(1, legacySignIn, "googleId query");
+		assertEquals(1, signIn, "combined query");
+	}
+
+	@Test
+	void queryFallbackCostsOneQueryPerCreate() throws Exception {
+		ReflectionTestUtils.setField(store, "queryFallback", true);
+
+		assertEquals(2, count(() -> userService.registerUserAsync(unique("register") + "@example.com", "pw", "Test User")));
+		assertEquals(3, count(() -> userService.findOrCreateGoogleUserAsync(unique("google"), unique("google") + "@example.com", "Test User")));
+	}
+
+	@Test
+	void concurrentLookupsShareOneRoundTrip() throws Exception {
+		User user = userService.registerUserAsync(unique("double") + "@example.com", "pw", "Test User").get();
+		userCache.invalidateAll();
+
+		long rounds = count(() -> CompletableFuture.allOf(
+				userRepository.findByEmailAsync(user.getEmail()),
+				userRepository.findByEmailAsync(user.getEmail())));
+		assertEquals(2, rounds, "pointer get + user get, shared by both callers");
+	}
+
+	@Test
+	void concurrentRegistrationsOfOneEmailConflict() throws Exception {
+		String email = unique("race") + "@example.com";
+		CompletableFuture<User> first = userService.registerUserAsync(email, "pw", "First");
+		CompletableFuture<User> second = userService.registerUserAsync(email, "pw", "Second");
+
+		CompletableFuture.allOf(first, second).handle((done, e) -> null).get();
+		assertEquals(1, (first.isCompletedExceptionally() ? 0 : 1) + (second.isCompletedExceptionally() ? 0 : 1));
+		CompletableFuture<User> loser = first.isCompletedExceptionally() ? first : second;
+		assertThrows(Exception.class, loser::get);
+	}
+
+	// The old registration: an existence query in the controller, another in the service, then a set
+	private CompletableFuture<?> legacyRegister(String email) {
+		return legacy(firestore.collection("users").whereEqualTo("email", email).limit(1).get())
+				.thenCompose(taken -> legacy(firestore.collection("users").whereEqualTo("email", email).limit(1).get()))
+				.thenCompose(taken -> {
+					String id = UUID.randomUUID().toString();
+					return legacy(firestore.collection("users").document(id).set(User.builder().id(id).email(email).build()));
+				});
+	}
+
+	// The old Google sign-in: googleId query, then email query, then a set when neither matched
+	private CompletableFuture<?> legacyGoogleSignIn(String googleId, String email) {
+		return legacy(firestore.collection("users").whereEqualTo("googleId", googleId).limit(1).get()).thenCompose(byGoogleId -> {
+			if (!byGoogleId.isEmpty()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			return legacy(firestore.collection("users").whereEqualTo("email", email).limit(1).get()).thenCompose(byEmail -> {
+				String id = UUID.randomUUID().toString();
+				return legacy(firestore.collection("users").document(id)
+						.set(User.builder().id(id).email(email).googleId(googleId).build()));
+			});
+		});
+	}
+
+	private <T> CompletableFuture<T> legacy(ApiFuture<T> call) {
+		meterRegistry.counter("user.repository.round.trips", "operation", "legacy").increment();
+		return FirestoreFutures.toCompletableFuture(call, MoreExecutors.directExecutor());
+	}
+
+	private long count(Supplier<CompletableFuture<?>> flow) throws Exception {
+		long before = roundTrips();
+		flow.get().get();
+		return roundTrips() - before;
+	}
+
+	private long roundTrips() {
+		return (long) meterRegistry.find("user.repository.round.trips").counters().stream()
+				.mapToDouble(Counter::count)
+				.sum();
+	}
+
+	private static String unique(String prefix) {
+		return prefix + "-" + UUID.randomUUID();
+	}
+}
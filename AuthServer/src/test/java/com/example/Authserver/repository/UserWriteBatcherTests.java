@@ -0,0 +1,109 @@
+package com.example.Authserver.repository;
+
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserWriteBatcherTests {
+
+	private Firestore firestore;
+	private WriteBatch batch;
+	private SimpleMeterRegistry meterRegistry;
+	private UserWriteBatcher batcher;
+
+	@BeforeEach
+	void setUp() {
+		firestore = mock(Firestore.class);
+		batch = mock(WriteBatch.class);
+		when(firestore.batch()).thenReturn(batch);
+		meterRegistry = new SimpleMeterRegistry();
+		// Long window so only the explicit flush commits
+		batcher = new UserWriteBatcher(firestore, meterRegistry, Duration.ofHours(1), 500);
+	}
+
+	@AfterEach
+	void tearDown() {
+		batcher.shutdown();
+	}
+
+	@Test
+	void burstOfSavesCommitsInOneBatch() throws Exception {
+		when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+		AtomicInteger staleWrites = new AtomicInteger();
+		AtomicInteger latestWrites = new AtomicInteger();
+
+		List<CompletableFuture<Void>> saves = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			saves.add(batcher.enqueue("user-" + i, b -> staleWrites.incrementAndGet()));
+			saves.add(batcher.enqueue("user-" + i, b -> latestWrites.incrementAndGet()));
+		}
+		batcher.flush().get();
+
+		verify(firestore, times(1)).batch();
+		verify(batch, times(1)).commit();
+		assertEquals(0, staleWrites.get());
+		assertEquals(300, latestWrites.get());
+		assertEquals(300, meterRegistry.counter("user.write.coalesced").count());
+		assertTrue(saves.stream().allMatch(save -> save.isDone() && !save.isCompletedExceptionally()));
+	}
+
+	@Test
+	void failedCommitFailsEveryCaller() throws Exception {
+		when(batch.commit()).thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("unavailable")));
+
+		CompletableFuture<Void> first = batcher.enqueue("user-1", b -> { });
+		CompletableFuture<Void> second = batcher.enqueue("user-2", b -> { });
+		batcher.flush().get();
+
+		assertThrows(ExecutionException.class, first::get);
+		assertThrows(ExecutionException.class, second::get);
+		assertEquals(2, meterRegistry.counter("user.write.failures").count());
+	}
+
+	@Test
+	void laterWindowWaitsForTheCommitBeforeIt() throws Exception {
+		SettableApiFuture<List<WriteResult>> firstCommit = SettableApiFuture.create();
+		when(batch.commit()).thenReturn(firstCommit, ApiFutures.immediateFuture(List.of()));
+		List<String> staged = new ArrayList<>();
+
+		CompletableFuture<Void> older = batcher.enqueue("user-1", b -> staged.add("older"));
+		CompletableFuture<Void> olderFlush = batcher.flush();
+		CompletableFuture<Void> newer = batcher.enqueue("user-1", b -> staged.add("newer"));
+		CompletableFuture<Void> newerFlush = batcher.flush();
+
+		// The newer write is not even staged while the older one is in flight
+		verify(batch, times(1)).commit();
+		assertEquals(List.of("older"), staged);
+		assertFalse(newer.isDone());
+
+		firstCommit.set(List.of());
+		olderFlush.get();
+		newerFlush.get();
+
+		verify(batch, times(2)).commit();
+		assertEquals(List.of("older", "newer"), staged);
+		assertTrue(older.isDone() && newer.isDone());
+	}
+}
@@ -0,0 +1,82 @@
+package com.example.Authserver.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoginRateLimitFilterTests {
+
+	private final LoginRateLimitFilter filter = new LoginRateLimitFilter(new ObjectMapper(), new SimpleMeterRegistry(),
+			100, Duration.ofMinutes(1), 2, Duration.ofMinutes(10), 1000);
+
+	LoginRateLimitFilterTests() {
+		ReflectionTestUtils.setField(filter, "enabled", true);
+	}
+
+	private static MockHttpServletRequest login(String email) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+		request.setContentType("application/json");
+		request.setContent(("{\"email\":\"" + email + "\",\"password\":\"x\"}").getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	private int attempt(String email, int loginStatus) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(login(email), response, (req, res) -> {
+			req.getInputStream().readAllBytes();
+			((MockHttpServletResponse) res).setStatus(loginStatus);
+		});
+		return response.getStatus();
+	}
+
+	@Test
+	void onlyFailedLoginsCountAgainstAnEmail() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			assertEquals(200, attempt("a@example.edu", 200));
+		}
+
+		assertEquals(401, attempt("b@example.edu", 401));
+		assertEquals(401, attempt("B@example.edu", 401));
+		assertEquals(429, attempt("b@example.edu", 200));
+		// Another email has its own budget
+		assertEquals(200, attempt("a@example.edu", 200));
+	}
+
+	@Test
+	void bufferedBodyCanBeReadWithAReadListener() throws Exception {
+		List<String> events = new ArrayList<>();
+		filter.doFilter(login("a@example.edu"), new MockHttpServletResponse(), (req, res) -> {
+			ServletInputStream in = req.getInputStream();
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() {
+					events.add("data");
+				}
+
+				@Override
+				public void onAllDataRead() {
+					events.add("done");
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					events.add("error");
+				}
+			});
+		});
+
+		assertEquals(List.of("data", "done"), events);
+	}
+}
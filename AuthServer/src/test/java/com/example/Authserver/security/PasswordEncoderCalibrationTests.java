@@ -0,0 +1,59 @@
+package com.example.Authserver.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncoderCalibrationTests {
+
+	private PasswordEncoder encoder(String algorithm, int bcryptCost) {
+		return PasswordEncoderCalibration.create(algorithm, Duration.ofMillis(50), bcryptCost, 4, 12, 1, 3);
+	}
+
+	@Test
+	void legacyBcryptHashesMatchAndAreUpgraded() {
+		String legacy = new BCryptPasswordEncoder(4).encode("secret");
+		PasswordEncoder encoder = encoder("bcrypt", 5);
+
+		assertTrue(encoder.matches("secret", legacy));
+		assertTrue(encoder.upgradeEncoding(legacy));
+	}
+
+	@Test
+	void hashesAtTheTargetCostAreKept() {
+		PasswordEncoder encoder = encoder("bcrypt", 5);
+		String encoded = encoder.encode("secret");
+
+		assertTrue(encoded.startsWith("{bcrypt}$2a$05$"));
+		assertFalse(encoder.upgradeEncoding(encoded));
+		// A replica calibrated lower must not weaken it
+		assertFalse(encoder("bcrypt", 4).upgradeEncoding(encoded));
+		assertTrue(encoder("bcrypt", 6).upgradeEncoding(encoded));
+	}
+
+	@Test
+	void bcryptHashesMigrateToArgon2() {
+		String bcrypt = encoder("bcrypt", 4).encode("secret");
+		PasswordEncoder argon2 = encoder("argon2", 4);
+
+		assertTrue(argon2.matches("secret", bcrypt));
+		assertTrue(argon2.upgradeEncoding(bcrypt));
+
+		String rehashed = argon2.encode("secret");
+		assertTrue(rehashed.startsWith("{argon2}"));
+		assertTrue(argon2.matches("secret", rehashed));
+		assertFalse(argon2.upgradeEncoding(rehashed));
+	}
+
+	@Test
+	void calibrationStaysWithinBounds() {
+		String encoded = PasswordEncoderCalibration.create("bcrypt", Duration.ofMillis(1), 0, 4, 6, 0, 3)
+				.encode("secret");
+
+		assertTrue(encoded.startsWith("{bcrypt}$2a$04$"));
+	}
+}
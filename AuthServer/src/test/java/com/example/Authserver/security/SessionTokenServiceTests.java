@@ -0,0 +1,61 @@
+package com.example.Authserver.security;
+
+import com.example.Authserver.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTokenServiceTests {
+
+	private static final String OLD_KEY = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+	private static final String NEW_KEY = "k2:" + Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+	private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+	private final User user = User.builder().id("u1").role("student").build();
+
+	private SessionTokenService service(String keys, Clock clock) {
+		return new SessionTokenService("token", keys, Duration.ofHours(1), true, clock);
+	}
+
+	@Test
+	void roundTripsClaims() {
+		SessionTokenService service = service(NEW_KEY, clock);
+		SessionTokenService.SessionToken token = service.verify(service.issue(user)).orElseThrow();
+
+		assertEquals("u1", token.userId());
+		assertEquals("student", token.role());
+		assertEquals(Instant.parse("2025-01-01T01:00:00Z"), token.expiresAt());
+	}
+
+	@Test
+	void rejectsTamperedAndForeignTokens() {
+		SessionTokenService service = service(NEW_KEY, clock);
+		String token = service.issue(user);
+		String forged = token.substring(0, token.lastIndexOf('.') + 1) + "AAAA";
+
+		assertTrue(service.verify(forged).isEmpty());
+		assertTrue(service.verify("not-a-token").isEmpty());
+		assertTrue(service(OLD_KEY, clock).verify(token).isEmpty());
+	}
+
+	@Test
+	void rejectsExpiredTokens() {
+		String token = service(NEW_KEY, clock).issue(user);
+		Clock later = Clock.offset(clock, Duration.ofHours(2));
+
+		assertTrue(service(NEW_KEY, later).verify(token).isEmpty());
+	}
+
+	@Test
+	void acceptsTokensSignedWithRotatedOutKey() {
+		String token = service(OLD_KEY, clock).issue(user);
+
+		assertTrue(service(NEW_KEY + "," + OLD_KEY, clock).verify(token).isPresent());
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.Authserver.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTests {
+
+	private final AtomicLong now = new AtomicLong();
+
+	@Test
+	void burstIsAllowedThenRefillsAtTheConfiguredRate() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(3, Duration.ofSeconds(3), 1000, now::get);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+		}
+		long wait = limiter.tryAcquire("10.0.0.1");
+		assertTrue(wait > 0 && wait <= Duration.ofSeconds(1).toNanos(), "wait " + wait);
+		// Other keys have their own buckets
+		assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+		assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+	}
+
+	@Test
+	void waitTimeLooksWithoutTakingAToken() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(2, Duration.ofSeconds(2), 1000, now::get);
+
+		assertEquals(0, limiter.waitTime("a@example.edu"));
+		assertEquals(0, limiter.size());
+		limiter.tryAcquire("a@example.edu");
+		limiter.tryAcquire("a@example.edu");
+		assertTrue(limiter.waitTime("a@example.edu") > 0);
+		assertTrue(limiter.waitTime("a@example.edu") > 0);
+
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertEquals(0, limiter.waitTime("a@example.edu"));
+		assertEquals(0, limiter.waitTime("a@example.edu"));
+	}
+
+	@Test
+	void bucketsThatRefilledAreDropped() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(5, Duration.ofMinutes(1), 100_000, now::get);
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire("user" + i + "@example.edu");
+		}
+		assertEquals(100, limiter.size());
+
+		// Swept as each stripe is next used, once every bucket is full again
+		now.addAndGet(Duration.ofMinutes(2).toNanos());
+		for (int i = 0; i < 1000; i++) {
+			limiter.tryAcquire("later" + i + "@example.edu");
+		}
+		assertEquals(1000, limiter.size());
+		assertEquals(0, limiter.tryAcquire("user0@example.edu"));
+	}
+
+	@Test
+	void memoryIsBoundedByMaxKeys() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(5, Duration.ofMinutes(1), 640, now::get);
+		for (int i = 0; i < 10_000; i++) {
+			limiter.tryAcquire("10.1." + (i / 256) + "." + (i % 256));
+			now.addAndGet(1000);
+		}
+		assertTrue(limiter.size() <= 640, "size " + limiter.size());
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.Authserver.service;
+
+import com.example.Authserver.entity.User;
+import com.example.Authserver.repository.UserRepository;
+import com.example.Authserver.security.PasswordHasher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private UserRepository userRepository;
+	private PasswordHasher passwordHasher;
+	private UserImportService importService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		passwordHasher = new PasswordHasher(new SimpleMeterRegistry(), ObservationRegistry.NOOP, 2, 4, Duration.ofSeconds(1));
+		importService = new UserImportService(userRepository, new BCryptPasswordEncoder(4), passwordHasher, objectMapper);
+		ReflectionTestUtils.setField(importService, "chunkSize", 100);
+		ReflectionTestUtils.setField(importService, "maxRows", 1000);
+		when(userRepository.createAll(any())).thenReturn(CompletableFuture.completedFuture(null));
+	}
+
+	@AfterEach
+	void tearDown() {
+		ReflectionTestUtils.invokeMethod(passwordHasher, "shutdown");
+	}
+
+	@Test
+	void importsCsvRowsInOneBatch() throws Exception {
+		when(userRepository.findAllByEmails(anyCollection())).thenReturn(CompletableFuture.completedFuture(
+				Map.of("taken@pitt.edu", User.builder().id("existing-id").email("taken@pitt.edu").build())));
+
+		List<Map<String, Object>> results = importRoster(false, """
+				email,fullName,password,role
+				ann@pitt.edu,"Lee, Ann",secret,student
+				taken@pitt.edu,Taken User,,
+				ANN@pitt.edu,Ann Again,,
+				not-an-email,Nobody,,
+				bob@pitt.edu,Bob,,professor
+				""");
+
+		assertEquals(List.of("created", "exists", "duplicate", "invalid", "created"),
+				results.subList(0, 5).stream().map(result -> result.get("status")).toList());
+		assertEquals("existing-id", results.get(1).get("userId"));
+		assertEquals(Map.of("created", 2, "exists", 1, "duplicate", 1, "invalid", 1), results.get(5).get("summary"));
+		verify(userRepository, times(1)).createAll(any());
+	}
+
+	@Test
+	void importsNdjsonRows() throws Exception {
+		when(userRepository.findAllByEmails(anyCollection())).thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+		List<Map<String, Object>> results = importRoster(true, """
+				{"email": "carol@pitt.edu", "fullName": "Carol", "role": "student", "studentId": "S-1"}
+				{"email": "dave@pitt.edu"
+				""");
+
+		assertEquals("created", results.get(0).get("status"));
+		assertEquals("invalid", results.get(1).get("status"));
+	}
+
+	@Test
+	void parsesQuotedCsvFields() {
+		assertEquals(List.of("a", "b, c", "say \"hi\"", ""), UserImportService.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+		assertNull(UserImportService.parseCsvLine("a,\"unterminated"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> importRoster(boolean ndjson, String roster) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		importService.importUsers(new ByteArrayInputStream(roster.getBytes(StandardCharsets.UTF_8)), ndjson, out);
+		return out.toString(StandardCharsets.UTF_8).lines()
+				.map(line -> {
+					try {
+						return (Map<String, Object>) objectMapper.readValue(line, Map.class);
+					} catch (Exception e) {
+						throw new IllegalStateException(line, e);
+					}
+				})
+				.toList();
+	}
+}